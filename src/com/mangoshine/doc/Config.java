@@ -1,53 +1,214 @@
 package com.mangoshine.doc;
 
 import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Configuration class. These values are set when parsing
  * the command line arguments.
+ * Each build has its own Config, so builds in the
+ * same JVM can be configured differently.
  */
-public enum Config {
-    INSTANCE;
+public class Config {
+    /* The include pattern used when none is given */
+    public static final String DEFAULT_INCLUDE = "**/*.js";
 
-    static private List<String> input = new ArrayList<>();
-    static private String output;
-    static private File outputDir;
-    static private boolean silent = false;
+    private List<String> input = new ArrayList<>();
+    private List<String> include = new ArrayList<>();
+    private List<String> exclude = new ArrayList<>();
+    private String output;
+    private File outputDir;
+    private boolean silent = false;
+    private boolean cached = false;
+    private boolean mapped = false;
+    private boolean watching = false;
+    private boolean compactText = false;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Charset encoding = StandardCharsets.UTF_8;
+    private File snapshotIn;
+    private File snapshotOut;
 
-    static public void addInput(String name) {
+    public void addInput(String name) {
         input.add(name);
     }
 
-    static public void setOutput(String name) {
+    /**
+     * Adds a glob for the files to include when walking input directories.
+     * A pattern that starts with ! is added as an exclude instead.
+     */
+    public void addInclude(String pattern) {
+        if (pattern.startsWith("!")) {
+            addExclude(pattern.substring(1));
+        } else {
+            include.add(pattern);
+        }
+    }
+
+    /**
+     * Adds a glob for the files to exclude when walking input directories.
+     */
+    public void addExclude(String pattern) {
+        exclude.add(pattern);
+    }
+
+    public void setOutput(String name) {
         output = name;
     }
 
-    static public void setSilent(boolean b) {
+    public void setSilent(boolean b) {
         silent = b;
     }
 
-    static public List getInputs() {
+    public void setCached(boolean b) {
+        cached = b;
+    }
+
+    public void setMapped(boolean b) {
+        mapped = b;
+    }
+
+    public void setThreads(int n) {
+        threads = Math.max(1, n);
+    }
+
+    public void setWatching(boolean b) {
+        watching = b;
+    }
+
+    public void setCompactText(boolean b) {
+        compactText = b;
+    }
+
+    /**
+     * Sets the charset the input files are read and the pages written in.
+     * Throws IllegalArgumentException if there is no such charset.
+     */
+    public void setEncoding(String name) {
+        encoding = Charset.forName(name);
+    }
+
+    /**
+     * Sets the snapshot to load the documentation
+     * from, instead of parsing the inputs.
+     */
+    public void setSnapshotIn(String name) {
+        snapshotIn = new File(name);
+    }
+
+    /**
+     * Sets the file to save a snapshot of the parsed documentation to.
+     */
+    public void setSnapshotOut(String name) {
+        snapshotOut = new File(name);
+    }
+
+    public List<String> getInputs() {
         return input;
     }
 
-    static public File getOutputDir() {
+    /**
+     * Returns the include patterns. When parsing the arguments,
+     * DEFAULT_INCLUDE is added if none were given.
+     */
+    public List<String> getIncludes() {
+        return include;
+    }
+
+    public List<String> getExcludes() {
+        return exclude;
+    }
+
+    public File getOutputDir() {
         if (outputDir == null) {
             outputDir = new File(System.getProperty("user.dir")+"/"+output);
         }
         return outputDir;
     }
 
-    static public boolean isSilent() {
+    public boolean isSilent() {
         return silent;
     }
 
+    /**
+     * Returns true if scanned files are cached in the output directory
+     * between runs.
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * Returns true if input files are scanned directly from
+     * their bytes rather than read line by line.
+     */
+    public boolean isMapped() {
+        return mapped;
+    }
+
+    /**
+     * Returns the number of threads used to scan the input files.
+     * Defaults to the number of available processors.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Returns true if the inputs are watched for changes
+     * after the documentation has been generated.
+     */
+    public boolean isWatching() {
+        return watching;
+    }
+
+    /**
+     * Returns true if descriptions are kept as UTF-8 in a shared
+     * TextStore rather than as Strings, for huge documentations.
+     */
+    public boolean isCompactText() {
+        return compactText;
+    }
+
+    /**
+     * Returns the charset the input files are read and
+     * the pages written in. Defaults to UTF-8.
+     */
+    public Charset getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Returns the snapshot the documentation is loaded from, or null
+     * if the inputs are parsed.
+     */
+    public File getSnapshotIn() {
+        return snapshotIn;
+    }
+
+    /**
+     * Returns the file a snapshot of the documentation
+     * is saved to, or null if none is saved.
+     */
+    public File getSnapshotOut() {
+        return snapshotOut;
+    }
+
+    /**
+     * Returns true if the pages are written to an output directory.
+     */
+    public boolean hasOutput() {
+        return output != null && !output.equals("");
+    }
+
     /**
      * Checks if all configuration has been set.
-     * Returns true if everything has been set.
+     * Returns true if there is something to read the documentation
+     * from, and somewhere to write it to.
      */
-    static public boolean check() {
-        return input.size() > 0 && output != null && !output.equals("");
+    public boolean check() {
+        return (input.size() > 0 || snapshotIn != null) && (hasOutput() || snapshotOut != null);
     }
 }
\ No newline at end of file
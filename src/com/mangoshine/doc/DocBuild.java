@@ -0,0 +1,46 @@
+package com.mangoshine.doc;
+
+import com.mangoshine.doc.construct.Documentation;
+import com.mangoshine.doc.dom.DOMBuilder;
+import com.mangoshine.doc.logging.Logger;
+
+/**
+ * Everything that belongs to a single build: its Config, the
+ * Documentation it parses into, and the caches used while writing it.
+ *
+ * Nothing here is shared between builds, so any number of
+ * builds can run at once in the same JVM. A single build is
+ * still only meant to be used by one thread at a time.
+ */
+public class DocBuild {
+    private final Config config;
+    private final Documentation documentation;
+    private final Logger logger;
+
+    /* Keeps the sidebar and footer that every page shares */
+    private final DOMBuilder domBuilder;
+
+    public DocBuild(Config config) {
+        this.config = config;
+        this.documentation = new Documentation();
+        this.documentation.setCompactText(config.isCompactText());
+        this.logger = new Logger(config.isSilent());
+        this.domBuilder = new DOMBuilder(documentation);
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    public Documentation getDocumentation() {
+        return documentation;
+    }
+
+    public Logger getLogger() {
+        return logger;
+    }
+
+    public DOMBuilder getDOMBuilder() {
+        return domBuilder;
+    }
+}
\ No newline at end of file
@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.mangoshine.doc.construct.Documentation;
+import com.mangoshine.doc.construct.DocumentationSnapshot;
 import com.mangoshine.doc.logging.Logger;
 import com.mangoshine.doc.parsing.Parser;
 import com.mangoshine.doc.writing.Writer;
@@ -17,17 +18,40 @@ public class MangoDoc {
     public static void main(String[] args) {
         try {
             // Set up configuration
-            parseArguments(args);
+            DocBuild build = new DocBuild(parseArguments(args));
+            Config config = build.getConfig();
+            Logger logger = build.getLogger();
 
-            // Parse the files
-            Parser parser = new Parser();
-            Documentation jsdoc = parser.parse();
+            // Parse the files, or load them already parsed
+            Parser parser = null;
+            Documentation jsdoc = build.getDocumentation();
+            if (config.getSnapshotIn() != null) {
+                logger.log("Loading snapshot");
+                DocumentationSnapshot.load(jsdoc, config.getSnapshotIn());
+            } else {
+                parser = new Parser(build);
+                parser.parse();
+            }
+            jsdoc.freeze();
+
+            if (config.getSnapshotOut() != null) {
+                logger.log("Saving snapshot");
+                DocumentationSnapshot.save(jsdoc, config.getSnapshotOut());
+            }
+            if (!config.hasOutput()) {
+                return;
+            }
 
             // Write to output
-            Logger.log("Generating documentation");
-            Writer writer = new Writer();
+            logger.log("Generating documentation");
+            Writer writer = new Writer(build);
             writer.writeToFile(jsdoc);
-            Logger.log("Complete");
+            logger.log("Complete");
+
+            // Keep the output up to date
+            if (config.isWatching() && parser != null) {
+                new Watcher(build, parser, writer).run();
+            }
         } catch (Exception e) {
             System.err.println("\nError : \n");
             System.err.println(e.getMessage());
@@ -38,8 +62,8 @@ public class MangoDoc {
     /**
      * Parses the arguments and generates the Config.
      */
-    private static void parseArguments(String[] args) {
-        Config config = Config.INSTANCE;
+    private static Config parseArguments(String[] args) {
+        Config config = new Config();
 
         for (int i = 0; i < args.length; i++) {
             switch (args[i].charAt(0)) {
@@ -48,12 +72,44 @@ public class MangoDoc {
                         while (hasNextArg(args, i) && nextArgIsValue(args, i)) {
                             config.addInput(args[++i]);
                         }
+                    } else if (args[i].equals("--include")) {
+                        while (hasNextArg(args, i) && nextArgIsValue(args, i)) {
+                            config.addInclude(args[++i]);
+                        }
+                    } else if (args[i].equals("--exclude")) {
+                        while (hasNextArg(args, i) && nextArgIsValue(args, i)) {
+                            config.addExclude(args[++i]);
+                        }
                     } else if (args[i].equals("-o") || args[i].equals("--output")) {
                         if (hasNextArg(args, i) && nextArgIsValue(args, i)) {
                             config.setOutput(args[++i]);
                         }
                     } else if (args[i].equals("-s") || args[i].equals("--silent")) {
                         config.setSilent(true);
+                    } else if (args[i].equals("-c") || args[i].equals("--cache")) {
+                        config.setCached(true);
+                    } else if (args[i].equals("--compact-text")) {
+                        config.setCompactText(true);
+                    } else if (args[i].equals("-e") || args[i].equals("--encoding")) {
+                        if (hasNextArg(args, i) && nextArgIsValue(args, i)) {
+                            config.setEncoding(args[++i]);
+                        }
+                    } else if (args[i].equals("--save-snapshot")) {
+                        if (hasNextArg(args, i) && nextArgIsValue(args, i)) {
+                            config.setSnapshotOut(args[++i]);
+                        }
+                    } else if (args[i].equals("--load-snapshot")) {
+                        if (hasNextArg(args, i) && nextArgIsValue(args, i)) {
+                            config.setSnapshotIn(args[++i]);
+                        }
+                    } else if (args[i].equals("-m") || args[i].equals("--mmap")) {
+                        config.setMapped(true);
+                    } else if (args[i].equals("-t") || args[i].equals("--threads")) {
+                        if (hasNextArg(args, i) && nextArgIsValue(args, i)) {
+                            config.setThreads(Integer.parseInt(args[++i]));
+                        }
+                    } else if (args[i].equals("-w") || args[i].equals("--watch")) {
+                        config.setWatching(true);
                     } else if (args[i].equals("-h") || args[i].equals("--help")) {
                         printUsage();
                     }
@@ -63,9 +119,15 @@ public class MangoDoc {
             }
         }
 
+        // all .js files, unless told otherwise
+        if (config.getIncludes().isEmpty()) {
+            config.addInclude(Config.DEFAULT_INCLUDE);
+        }
+
         if (!config.check()) {
             printUsage();
         }
+        return config;
     }
 
     /**
@@ -75,6 +137,27 @@ public class MangoDoc {
         System.out.println();
         System.out.println("usage: java -jar mangodoc [options] [-i input files|directories] [-o output directory]");
         System.out.println();
+        System.out.println("options :");
+        System.out.println("    --include <glob ...>    files to include when searching input directories");
+        System.out.println("                            (defaults to **/*.js), a glob starting with ! is");
+        System.out.println("                            excluded instead");
+        System.out.println("    -c, --cache             cache scanned files in the output directory, so");
+        System.out.println("                            files that haven't changed aren't scanned again");
+        System.out.println("    --compact-text          keep descriptions in memory as UTF-8 rather than");
+        System.out.println("                            as Strings");
+        System.out.println("    -e, --encoding <name>   charset the input files are read and the pages");
+        System.out.println("                            are written in (defaults to UTF-8)");
+        System.out.println("    --exclude <glob ...>    files to exclude when searching input directories");
+        System.out.println("    --load-snapshot <file>  load the documentation from a snapshot instead");
+        System.out.println("                            of parsing the inputs");
+        System.out.println("    -m, --mmap              scan input files directly from their bytes");
+        System.out.println("    --save-snapshot <file>  save a snapshot of the parsed documentation,");
+        System.out.println("                            -o may be left out to only save the snapshot");
+        System.out.println("    -s, --silent            don't print progress messages");
+        System.out.println("    -t, --threads <n>       number of threads used to scan the input files");
+        System.out.println("    -w, --watch             keep running and regenerate the pages of the");
+        System.out.println("                            files that change");
+        System.out.println();
         System.exit(-1);
     }
 
@@ -0,0 +1,214 @@
+package com.mangoshine.doc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.mangoshine.doc.annotation.Annotation;
+import com.mangoshine.doc.annotation.AnnotationException;
+import com.mangoshine.doc.asset.InvalidAssetException;
+import com.mangoshine.doc.construct.Documentation;
+import com.mangoshine.doc.construct.Entry;
+import com.mangoshine.doc.construct.LinkTable;
+import com.mangoshine.doc.dom.DOMBuilder;
+import com.mangoshine.doc.parsing.Parser;
+import com.mangoshine.doc.parsing.SourceFinder;
+import com.mangoshine.doc.writing.Writer;
+
+/**
+ * Keeps the documentation up to date while the inputs are edited.
+ *
+ * Every input directory, and the directory of every input file, is
+ * watched for changes. A burst of changes is collected until things
+ * have been quiet for a moment, then only the changed files are scanned
+ * again and only the pages they touched are written again. The index is
+ * written again when a class is added, removed or changed, and every
+ * page is written again when the sidebar changes.
+ *
+ * A cycle that fails, such as when a file is deleted while it is being
+ * scanned or has an invalid annotation, is logged and watching goes on.
+ * Parser keeps the files of a failed parse dirty, and the next cycle
+ * writes every page, since the failed one may have left any of them
+ * out of date.
+ */
+public class Watcher {
+    /* How long to wait for more changes before regenerating */
+    private static final long QUIET_MILLIS = 200;
+
+    private final DocBuild build;
+    private final Parser parser;
+    private final Writer writer;
+    private final WatchService watchService;
+
+    /* The directory each watch key belongs to */
+    private final Map<WatchKey, Path> dirs = new HashMap<>();
+
+    /* Set when a cycle fails, so the next one writes every page */
+    private boolean writeAll = false;
+
+    public Watcher(DocBuild build, Parser parser, Writer writer) throws IOException {
+        this.build = build;
+        this.parser = parser;
+        this.writer = writer;
+        this.watchService = FileSystems.getDefault().newWatchService();
+
+        List<String> inputs = build.getConfig().getInputs();
+        for (String input : inputs) {
+            Path path = Paths.get(input);
+            if (Files.isDirectory(path)) {
+                registerTree(path);
+            } else {
+                register(path.toAbsolutePath().getParent());
+            }
+        }
+    }
+
+    /**
+     * Watches the inputs until the thread is interrupted.
+     */
+    public void run() {
+        build.getLogger().log("Watching for changes");
+        WatchKey key;
+        while (true) {
+            Set<Path> changed = new HashSet<>();
+            try {
+                collect(watchService.take(), changed);
+                while ((key = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    collect(key, changed);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            try {
+                regenerate(changed);
+                writeAll = false;
+            } catch (AnnotationException | IOException | InvalidAssetException | RuntimeException e) {
+                build.getLogger().error(e.getMessage() != null ? e.getMessage() : e.toString());
+                writeAll = true;
+            }
+        }
+    }
+
+    /**
+     * Adds the paths of the key's events to the set of changed paths.
+     */
+    private void collect(WatchKey key, Set<Path> changed) {
+        Path dir = dirs.get(key);
+        Path path;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // events were lost, so anything could have changed
+                changed.addAll(parser.getSources());
+                continue;
+            }
+            if (dir == null) {
+                continue;
+            }
+            path = dir.resolve((Path) event.context());
+            changed.add(path);
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    registerTree(path);
+                } catch (IOException e) {
+                    // removed again before it could be watched
+                    build.getLogger().error("Could not watch " + path + " : " + e.getMessage());
+                }
+            }
+        }
+        if (!key.reset()) {
+            dirs.remove(key);
+        }
+    }
+
+    /**
+     * Parses the changed files and writes the pages they touched.
+     */
+    private void regenerate(Set<Path> changed) throws IOException,
+                                                      InvalidAssetException,
+                                                      AnnotationException {
+        Documentation jsdoc = build.getDocumentation();
+        DOMBuilder domBuilder = build.getDOMBuilder();
+        String sidebar = domBuilder.buildSidebarHTML();
+        LinkTable links = jsdoc.getLinks();
+        Set<String> classes = names(jsdoc.getEntries(Annotation.CLASS));
+
+        Set<String> pages = parser.update(changed);
+        jsdoc.freeze();
+
+        domBuilder.clearCache();
+        // links elsewhere that now resolve differently, or new references
+        pages.addAll(links.changedPages(jsdoc.getLinks()));
+        Set<String> nowClasses = names(jsdoc.getEntries(Annotation.CLASS));
+        boolean index = !classes.equals(nowClasses);
+        for (String page : pages) {
+            if (nowClasses.contains(page)) {
+                index = true;
+            }
+        }
+        if (writeAll || !sidebar.equals(domBuilder.buildSidebarHTML())) {
+            // the sidebar is on every page
+            pages.addAll(names(jsdoc.getEntries(Annotation.CLASS, Annotation.NAMESPACE)));
+            index = true;
+        }
+
+        if (pages.isEmpty() && !index) {
+            return;
+        }
+        build.getLogger().log("Regenerating " + pages.size() + " page(s)" + (index ? " and the index" : ""));
+        writer.writePages(jsdoc, pages, index);
+    }
+
+    private static Set<String> names(Set<Entry> entries) {
+        Set<String> names = new HashSet<>();
+        for (Entry entry : entries) {
+            names.add(entry.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Watches the directory and every directory under
+     * it that the input files are searched in.
+     */
+    private void registerTree(Path root) throws IOException {
+        Config config = build.getConfig();
+        SourceFinder finder = new SourceFinder(config.getIncludes(), config.getExcludes(),
+                                               build.getLogger());
+        try {
+            finder.find(Collections.singletonList(root.toString()), file -> { }, dir -> {
+                try {
+                    register(dir);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void register(Path dir) throws IOException {
+        dir = dir.toAbsolutePath().normalize();
+        WatchKey key = dir.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        dirs.put(key, dir);
+    }
+}
\ No newline at end of file
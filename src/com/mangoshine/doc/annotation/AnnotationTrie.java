@@ -0,0 +1,86 @@
+package com.mangoshine.doc.annotation;
+
+/**
+ * A trie over the names and short hand versions of the annotations,
+ * built once so that recognizing an annotation on a line needs no
+ * uppercase copy, no exception and no String compares.
+ *
+ * Each node is a row of 26 children, one per letter, and a match is
+ * stored as the annotation's ordinal plus one so that 0 means none.
+ */
+final class AnnotationTrie {
+    private static final int LETTERS = 26;
+    private static final Annotation[] VALUES = Annotation.values();
+
+    private static int[][] children = new int[1][LETTERS];
+    private static int[] matches = new int[1];
+    private static int size = 1;
+
+    static {
+        for (Annotation annotation : VALUES) {
+            // NONE only marks that there is no annotation
+            if (annotation == Annotation.NONE) {
+                continue;
+            }
+            add(annotation.name(), annotation);
+            if (annotation.getAlias() != null) {
+                add(annotation.getAlias(), annotation);
+            }
+        }
+    }
+
+    private AnnotationTrie() { }
+
+    /**
+     * Returns the annotation named by the chars from start to end, or null.
+     */
+    static Annotation recognize(CharSequence chars, int start, int end) {
+        int node = 0;
+        int letter;
+        for (int i = start; i < end; i++) {
+            letter = letter(chars.charAt(i));
+            if (letter < 0 || (node = children[node][letter]) == 0) {
+                return null;
+            }
+        }
+        int match = matches[node];
+        return match == 0 ? null : VALUES[match-1];
+    }
+
+    private static void add(String name, Annotation annotation) {
+        int node = 0;
+        int letter;
+        for (int i = 0; i < name.length(); i++) {
+            letter = letter(name.charAt(i));
+            if (children[node][letter] == 0) {
+                children[node][letter] = newNode();
+            }
+            node = children[node][letter];
+        }
+        matches[node] = annotation.ordinal() + 1;
+    }
+
+    private static int newNode() {
+        if (size == children.length) {
+            int[][] grown = new int[size * 2][];
+            System.arraycopy(children, 0, grown, 0, size);
+            children = grown;
+            int[] grownMatches = new int[size * 2];
+            System.arraycopy(matches, 0, grownMatches, 0, size);
+            matches = grownMatches;
+        }
+        children[size] = new int[LETTERS];
+        return size++;
+    }
+
+    /* The index of the letter ignoring case, or -1 if it isn't an ASCII letter */
+    private static int letter(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        return -1;
+    }
+}
\ No newline at end of file
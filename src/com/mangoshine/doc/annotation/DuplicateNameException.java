@@ -0,0 +1,13 @@
+package com.mangoshine.doc.annotation;
+
+/**
+ * Exception for a class or namespace declared with the
+ * name of a namespace or class, whose page it would share.
+ */
+public class DuplicateNameException extends AnnotationException {
+    private static final long serialVersionUID = 1L;
+
+    public DuplicateNameException(String annotation, int lineNum, String filename) {
+        super("Class and namespace with the same name", annotation, lineNum, filename);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.mangoshine.doc.annotation;
+
+/**
+ * Exception for annotations that need a class, namespace or
+ * method to belong to, when the file has not declared one yet.
+ */
+public class MissingContextException extends AnnotationException {
+    private static final long serialVersionUID = 1L;
+
+    public MissingContextException(String annotation, int lineNum, String filename) {
+        super("Annotation outside of a class or namespace", annotation, lineNum, filename);
+    }
+}
\ No newline at end of file
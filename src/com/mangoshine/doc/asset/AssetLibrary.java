@@ -64,7 +64,7 @@ public class AssetLibrary {
                 while ( (zEntry = zip.getNextEntry()) != null ) {
                     if (zEntry.getName().equals("assets/"+ name)) {
                         if (zEntry.isDirectory()) {
-                            WriterHelper.INSTANCE.copyInputStream(null, name, outputDir);
+                            WriterHelper.copyInputStream(null, name, outputDir);
                             String folder = zEntry.getName().replaceFirst("assets/", "");
                             while ( (zEntry = zip.getNextEntry()) != null ) {
                                 copyAsset(zEntry.getName().replaceFirst("assets/", ""),
@@ -73,7 +73,7 @@ public class AssetLibrary {
                             return;
                         }
                         InputStream is = AssetLibrary.class.getResourceAsStream("/"+zEntry.getName());
-                        WriterHelper.INSTANCE.copyInputStream(is, name, outputDir);
+                        WriterHelper.copyInputStream(is, name, outputDir);
                         return;
                     }
                 }
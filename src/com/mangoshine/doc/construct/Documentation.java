@@ -5,20 +5,108 @@ import java.util.Set;
 import com.mangoshine.doc.annotation.Annotation;
 
 /**
- * Singleton that represents the entire documentation.
+ * Represents the entire documentation of a single build.
  * The parser adds Entries to this class, and the writer
  * uses this class when generating the layout files.
  */
-public enum Documentation {
-    INSTANCE;
-
+public class Documentation {
     // Set of all Entries
     private EntrySet filterSet = new EntrySet();
 
+    // The links between the Entries
+    private LinkTable links = new LinkTable();
+
+    // Where the descriptions are kept, null to keep them as Strings
+    private TextStore textStore;
+
+    // True once nothing more can be added
+    private boolean frozen = false;
+
+    /**
+     * Removes every Entry from the documentation.
+     */
+    public void clear() {
+        filterSet = new EntrySet();
+        links = new LinkTable();
+        frozen = false;
+        if (textStore != null) {
+            textStore = new TextStore();
+        }
+    }
+
+    /**
+     * Compacts every Entry into read only sorted arrays, once parsing has
+     * finished and before the pages are written, so the sets they were
+     * built up in can be garbage collected. Nothing can be added until
+     * the documentation is cleared.
+     */
+    public void freeze() {
+        if (frozen) {
+            return;
+        }
+        // freezing a page freezes its members, so the keyed
+        // entries left to freeze are the ones on no page
+        for (Entry entry : filterSet.getTopLevel()) {
+            entry.freeze();
+        }
+        for (Entry entry : filterSet.getKeyed().values()) {
+            entry.freeze();
+        }
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Sets whether the descriptions of the Entries added from now on
+     * are kept compactly in a TextStore, rather than as Strings.
+     */
+    public void setCompactText(boolean b) {
+        textStore = b ? new TextStore() : null;
+    }
+
+    /**
+     * Returns the store the descriptions are kept in,
+     * or null if they are kept as Strings.
+     */
+    public TextStore getTextStore() {
+        return textStore;
+    }
+
+    /**
+     * Keeps the text of the Entry, and of everything
+     * added to it, in the store if there is one.
+     */
+    void compact(Entry entry) {
+        if (textStore != null) {
+            entry.setTextStore(textStore);
+        }
+    }
+
+    /**
+     * Resolves the links in every description, once all
+     * the Entries have been added.
+     */
+    public void resolveLinks() {
+        links = LinkTable.resolve(this);
+    }
+
+    /**
+     * Returns the links between the Entries, as of the last time they
+     * were resolved.
+     */
+    public LinkTable getLinks() {
+        return links;
+    }
+
     /**
      * Adds the given Entry into the documentation.
      */
     public void addEntry(Entry entry) {
+        checkNotFrozen();
+        compact(entry);
         filterSet.add(entry);
     }
 
@@ -27,9 +115,17 @@ public enum Documentation {
      * a child of the Entry thats name is parentName.
      */
     public void addEntry(String parentName, Entry entry) {
+        checkNotFrozen();
+        compact(entry);
         filterSet.add(parentName, entry);
     }
 
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("The documentation is frozen");
+        }
+    }
+
     /**
      * Returns the Entry with the given name.
      */
@@ -44,6 +140,13 @@ public enum Documentation {
         return filterSet.get(parentName, name);
     }
 
+    /**
+     * Returns the set the Entries are kept in.
+     */
+    EntrySet getEntrySet() {
+        return filterSet;
+    }
+
     /**
      * Returns all Entries.
      */
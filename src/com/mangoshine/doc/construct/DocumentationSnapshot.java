@@ -0,0 +1,374 @@
+package com.mangoshine.doc.construct;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.mangoshine.doc.annotation.Annotation;
+
+/**
+ * Saves the Documentation to a compact binary snapshot, and
+ * restores it from one, so the inputs only need to be parsed once
+ * for any number of renders.
+ *
+ * A snapshot is laid out as :
+ *
+ *   magic, version
+ *   string table   : every distinct String once, as UTF-8
+ *   entry records  : one fixed size record per Entry
+ *   parameters     : three strings each, in the order of their entries
+ *   members        : the entry ids of the methods, properties and
+ *                    nested namespaces, in the order of their entries
+ *   top level ids  : the top level entries, in the order they were added
+ *   keyed ids      : every entry's unique key and entry id
+ *
+ * Strings and entries are referred to by their index, -1 for none.
+ * An entry record holds the number of its parameters and members
+ * rather than where they start, since they are stored in entry order.
+ * Descriptions and defaults are stored as they were written, their
+ * links are resolved again once the snapshot has been read.
+ *
+ * A snapshot that is truncated, or whose counts and indexes don't add
+ * up, is rejected with an IOException rather than half read.
+ */
+public class DocumentationSnapshot {
+    /* "MDOC" */
+    private static final int MAGIC = 0x4D444F43;
+
+    /* Bump this whenever the format changes */
+    private static final int VERSION = 2;
+
+    private static final int NONE = -1;
+
+    /**
+     * Writes the snapshot to the file.
+     */
+    public static void save(Documentation doc, File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(file), 65536))) {
+            write(doc, out);
+        }
+    }
+
+    /**
+     * Replaces the content of the Documentation with the snapshot in the file.
+     */
+    public static void load(Documentation doc, File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(file), 65536))) {
+            read(doc, in);
+        }
+    }
+
+    /**
+     * Writes the snapshot of the Documentation.
+     */
+    public static void write(Documentation doc, DataOutput out) throws IOException {
+        EntrySet set = doc.getEntrySet();
+
+        // number every entry that can be reached
+        Map<Entry, Integer> ids = new IdentityHashMap<>();
+        List<Entry> entries = new ArrayList<>();
+        for (Entry entry : set.getTopLevel()) {
+            number(entry, ids, entries);
+        }
+        for (Entry entry : set.getKeyed().values()) {
+            number(entry, ids, entries);
+        }
+
+        StringTable strings = new StringTable();
+        int[][] records = new int[entries.size()][];
+        List<int[]> parameters = new ArrayList<>();
+        List<Integer> members = new ArrayList<>();
+        for (int i = 0; i < records.length; i++) {
+            Entry entry = entries.get(i);
+            ReturnValue returnValue = entry.getReturnValue();
+            List<Parameter> params = entry.getParameters();
+            if (params != null) {
+                for (Parameter param : params) {
+                    parameters.add(new int[] {
+                        strings.id(param.getName()),
+                        strings.id(param.getArgType()),
+                        strings.id(param.getPlainDescription()) });
+                }
+            }
+            records[i] = new int[] {
+                entry.getAnnotationType().ordinal(),
+                strings.id(entry.getName()),
+                strings.id(entry.getPlainDescription()),
+                strings.id(entry.getType()),
+                strings.id(entry.getPlainDefault()),
+                entry.getConstructor() != null ? ids.get(entry.getConstructor()) : NONE,
+                returnValue != null ? strings.id(returnValue.getPlainType()) : NONE,
+                returnValue != null ? strings.id(returnValue.getDescription()) : NONE,
+                params != null ? params.size() : NONE,
+                addIds(members, entry.getMethods(), ids),
+                addIds(members, entry.getProperties(), ids),
+                addIds(members, entry.getNestedNamespaces(), ids) };
+        }
+
+        Map<String, Entry> keyed = set.getKeyed();
+        int[] keys = new int[keyed.size()];
+        int k = 0;
+        for (String key : keyed.keySet()) {
+            keys[k++] = strings.id(key);
+        }
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        out.writeInt(strings.list.size());
+        for (String s : strings.list) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        out.writeInt(records.length);
+        for (int[] record : records) {
+            out.writeByte(record[0]);
+            for (int i = 1; i < record.length; i++) {
+                out.writeInt(record[i]);
+            }
+        }
+
+        out.writeInt(parameters.size());
+        for (int[] param : parameters) {
+            out.writeInt(param[0]);
+            out.writeInt(param[1]);
+            out.writeInt(param[2]);
+        }
+
+        out.writeInt(members.size());
+        for (int id : members) {
+            out.writeInt(id);
+        }
+
+        Collection<Entry> topLevel = set.getTopLevel();
+        out.writeInt(topLevel.size());
+        for (Entry entry : topLevel) {
+            out.writeInt(ids.get(entry));
+        }
+
+        out.writeInt(keys.length);
+        k = 0;
+        for (Entry entry : keyed.values()) {
+            out.writeInt(keys[k++]);
+            out.writeInt(ids.get(entry));
+        }
+    }
+
+    /**
+     * Replaces the content of the Documentation with the snapshot.
+     * Throws IOException if it is not a snapshot of this version,
+     * or if it is corrupt.
+     */
+    public static void read(Documentation doc, DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a documentation snapshot");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version : " + version);
+        }
+
+        Entry[] entries;
+        try {
+            entries = readEntries(doc, in);
+        } catch (EOFException e) {
+            throw new IOException("Corrupt snapshot : it ends too early", e);
+        } catch (RuntimeException e) {
+            // an index or a count that doesn't fit the rest of the snapshot
+            throw new IOException("Corrupt snapshot : " + e, e);
+        }
+        for (Entry e : entries) {
+            doc.compact(e);
+        }
+        doc.resolveLinks();
+    }
+
+    /* Reads the entries into the Documentation, returning all of them */
+    private static Entry[] readEntries(Documentation doc, DataInput in) throws IOException {
+
+        String[] strings = new String[in.readInt()];
+        byte[] bytes = new byte[256];
+        int length;
+        for (int i = 0; i < strings.length; i++) {
+            length = in.readInt();
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            in.readFully(bytes, 0, length);
+            strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        Annotation[] annotations = Annotation.values();
+        int[][] records = new int[in.readInt()][12];
+        int parameterCount = 0;
+        int memberCount = 0;
+        for (int[] record : records) {
+            record[0] = in.readUnsignedByte();
+            for (int i = 1; i < record.length; i++) {
+                record[i] = in.readInt();
+            }
+            parameterCount += Math.max(record[8], 0);
+            for (int i = 9; i < 12; i++) {
+                memberCount += Math.max(record[i], 0);
+            }
+        }
+
+        // create the entries, a constructor comes with its class
+        Entry[] entries = new Entry[records.length];
+        for (int i = 0; i < records.length; i++) {
+            int[] record = records[i];
+            String name = strings[record[1]];
+            Annotation annotation = annotations[record[0]];
+            switch (annotation) {
+                case CLASS:             entries[i] = new ClassEntry(name);
+                                        if (record[5] != NONE) {
+                                            entries[record[5]] = entries[i].getConstructor();
+                                        }
+                                        break;
+                case NAMESPACE:         entries[i] = new NamespaceEntry(name);
+                                        break;
+                case INSTANCEMETHOD:
+                case STATICMETHOD:
+                case EVENT:             entries[i] = new MethodEntry(annotation, name);
+                                        break;
+                case INSTANCEPROPERTY:
+                case STATICPROPERTY:    entries[i] = new PropertyEntry(annotation, name);
+                                        break;
+                case CONSTRUCTOR:       break;
+                default:                throw new IOException("Unexpected entry type : " + annotation);
+            }
+        }
+
+        // then fill them in
+        Entry entry;
+        checkCount(in.readInt(), parameterCount, "parameters");
+        for (int i = 0; i < records.length; i++) {
+            int[] record = records[i];
+            entry = entries[i];
+            if (entry == null) {
+                throw new IOException("Constructor without a class : " + strings[record[1]]);
+            }
+            entry.setDescription(strings[record[2]]);
+            if (record[3] != NONE) {
+                entry.setType(strings[record[3]]);
+            }
+            if (record[4] != NONE) {
+                entry.setDefault(strings[record[4]]);
+            }
+            if (record[6] != NONE) {
+                entry.setReturnValue(new ReturnValue(strings[record[6]], strings[record[7]]));
+            }
+            for (int p = 0; p < record[8]; p++) {
+                entry.addParameter(new Parameter(strings[in.readInt()], strings[in.readInt()],
+                                                 strings[in.readInt()]));
+            }
+        }
+
+        checkCount(in.readInt(), memberCount, "members");
+        for (int i = 0; i < records.length; i++) {
+            int[] record = records[i];
+            entry = entries[i];
+            for (int m = 0; m < record[9]; m++) {
+                entry.addMethod((MethodEntry) entries[in.readInt()]);
+            }
+            for (int m = 0; m < record[10]; m++) {
+                entry.addProperty(entries[in.readInt()]);
+            }
+            for (int m = 0; m < record[11]; m++) {
+                entry.addNestedNamespace(entries[in.readInt()]);
+            }
+        }
+
+        doc.clear();
+        EntrySet set = doc.getEntrySet();
+        for (int i = in.readInt(); i > 0; i--) {
+            set.add(entries[in.readInt()]);
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            set.put(strings[in.readInt()], entries[in.readInt()]);
+        }
+        return entries;
+    }
+
+    /* Throws if a count doesn't match what the entry records add up to */
+    private static void checkCount(int count, int expected, String what) throws IOException {
+        if (count != expected) {
+            throw new IOException("Corrupt snapshot : " + count + " " + what
+                                  + " where the entries have " + expected);
+        }
+    }
+
+    /* Gives the entry and everything under it an id, once */
+    private static void number(Entry entry, Map<Entry, Integer> ids, List<Entry> entries) {
+        if (ids.containsKey(entry)) {
+            return;
+        }
+        ids.put(entry, entries.size());
+        entries.add(entry);
+        if (entry.getConstructor() != null) {
+            number(entry.getConstructor(), ids, entries);
+        }
+        numberAll(entry.getMethods(), ids, entries);
+        numberAll(entry.getProperties(), ids, entries);
+        numberAll(entry.getNestedNamespaces(), ids, entries);
+    }
+
+    private static void numberAll(Collection<Entry> members, Map<Entry, Integer> ids, List<Entry> entries) {
+        if (members != null) {
+            for (Entry member : members) {
+                number(member, ids, entries);
+            }
+        }
+    }
+
+    /* Adds the ids of the members, returning how many there were or NONE */
+    private static int addIds(List<Integer> list, Collection<Entry> members, Map<Entry, Integer> ids) {
+        if (members == null) {
+            return NONE;
+        }
+        for (Entry member : members) {
+            list.add(ids.get(member));
+        }
+        return members.size();
+    }
+
+    /**
+     * Numbers each distinct String in the order they are first seen.
+     */
+    private static class StringTable {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> list = new ArrayList<>();
+
+        int id(String s) {
+            if (s == null) {
+                return NONE;
+            }
+            Integer id = ids.get(s);
+            if (id == null) {
+                id = list.size();
+                ids.put(s, id);
+                list.add(s);
+            }
+            return id;
+        }
+    }
+}
\ No newline at end of file
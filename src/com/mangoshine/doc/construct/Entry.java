@@ -1,10 +1,14 @@
 package com.mangoshine.doc.construct;
 
-import java.util.Arrays;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.SortedSet;
 import java.util.TreeSet;
 
 import com.mangoshine.doc.annotation.Annotation;
@@ -19,12 +23,50 @@ import com.mangoshine.doc.parsing.Line;
  * forces subclasses that don't include those options to do nothing if
  * one of those methods is called. For example, calling addProperty()
  * on a MethodEntry will do nothing.
+ *
+ * Methods and properties are also sorted into a bucket per annotation
+ * type as they are added, so asking for the members of one type
+ * returns a read only view of its bucket rather than a filtered copy.
+ *
+ * Entries are ordered by their name, then the name of the entry they are
+ * a member of, then their kind, so that members with the same name are
+ * all kept, ex: the instance method Circle#draw and the static method
+ * Circle.draw, while a list of several kinds stays in name order.
+ * The start of the name is packed into a long when the entry is
+ * created, so most comparisons never look at the name itself.
+ *
+ * Once frozen, the sets and buckets are read only sorted arrays and
+ * nothing more can be added to the entry.
+ *
+ * Once given a TextStore, the description is kept in the store rather
+ * than as a String, and so is the text of everything added to the entry.
  */
 public class Entry implements Comparable<Entry> {
+    private static final SortedSet<Entry> EMPTY = Collections.unmodifiableSortedSet(new TreeSet<Entry>());
+
     private Annotation annotation;
     private String name;
+    /* The first four chars of the name, so comparing them
+       compares the start of the names */
+    private long namePrefix;
+    /* The name of the entry this is a member of, "" for classes and
+       namespaces, whose names are already qualified */
+    private String parentName = "";
     private String description;
+    /* Collects the description while it is being appended to,
+       null once it has been frozen into the description String */
+    private StringBuilder descriptionBuilder;
+    /* The description with its links rendered, null until asked for */
+    private String renderedDescription;
+    /* Where the description is kept instead, null to keep it as a String */
+    private TextStore store;
+    private long descriptionRef = TextStore.EMPTY;
+    /* The stored description with its links rendered, the same ref if
+       it has none, TextStore.NONE until they are resolved */
+    private long renderedRef = TextStore.NONE;
     private String _default;
+    /* The default with its links rendered, null until they are resolved */
+    private String renderedDefault;
     private String type;
     private Entry constructor;
     private List<Parameter> parameters;
@@ -32,10 +74,17 @@ public class Entry implements Comparable<Entry> {
     private Set<Entry> methods;
     private Set<Entry> nestedNamespaces;
     private Set<Entry> properties;
+    private Map<Annotation, SortedSet<Entry>> methodBuckets;
+    private Map<Annotation, SortedSet<Entry>> propertyBuckets;
+    private boolean frozen = false;
+    /* True for a static member whose parent has an instance
+       member with the same name, so their anchors differ */
+    private boolean anchoredApart = false;
 
     protected Entry(Builder builder) {
         annotation = builder.annotation;
         name = builder.name;
+        namePrefix = prefix(name);
         type = builder.type;
         constructor = builder.constructor;
         description = builder.description;
@@ -45,19 +94,178 @@ public class Entry implements Comparable<Entry> {
         nestedNamespaces = builder.nestedNamespaces;
         parameters = builder.parameters;
         returnValue = builder.returnValue;
+        if (methods != null) {
+            methodBuckets = new EnumMap<>(Annotation.class);
+        }
+        if (properties != null) {
+            propertyBuckets = new EnumMap<>(Annotation.class);
+        }
     }
 
     public void appendToDescription(String text) {
-        if (this.description.equals("")) {
-            this.description = "<p>" + text;
+        if (store != null) {
+            descriptionRef = store.append(descriptionRef,
+                                          TextStore.length(descriptionRef) == 0 ? "<p>" : " ");
+            descriptionRef = store.append(descriptionRef, text);
+            renderedRef = TextStore.NONE;
+            return;
+        }
+        if (descriptionBuilder == null) {
+            descriptionBuilder = new StringBuilder(description);
+        }
+        if (descriptionBuilder.length() == 0) {
+            descriptionBuilder.append("<p>");
         } else {
-            this.description += " " + text;
+            descriptionBuilder.append(' ');
         }
+        descriptionBuilder.append(text);
+        renderedDescription = null;
+    }
+
+    /**
+     * Returns the plain description, first freezing what has been
+     * appended so far into a single String.
+     */
+    public String getPlainDescription() {
+        if (store != null) {
+            return store.get(descriptionRef);
+        }
+        if (descriptionBuilder != null) {
+            description = descriptionBuilder.toString();
+            descriptionBuilder = null;
+        }
+        return description;
+    }
+
+    /**
+     * Replaces the plain description, for restoring a snapshot.
+     */
+    void setDescription(String description) {
+        if (store != null) {
+            descriptionRef = store.add(description);
+            renderedRef = TextStore.NONE;
+            return;
+        }
+        this.description = description;
+        descriptionBuilder = null;
+        renderedDescription = null;
     }
 
     public void setDefault(String str) {
         if (_default != null) {
             _default = str;
+            renderedDefault = null;
+        }
+    }
+
+    /**
+     * Renders the links of the description, the default and the
+     * parameters against the table, as they appear at the given target.
+     */
+    void renderLinks(LinkTable links, LinkTable.Target from) {
+        String plain = getPlainDescription();
+        String rendered = links.render(plain, from);
+        if (store != null) {
+            // only stored a second time if it has links
+            renderedRef = rendered.equals(plain) ? descriptionRef : store.add(rendered);
+        } else {
+            renderedDescription = rendered;
+        }
+        if (_default != null) {
+            renderedDefault = links.render(_default, from);
+        }
+        if (parameters != null) {
+            for (Parameter parameter : parameters) {
+                parameter.renderLinks(links, from);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the links of the description have been rendered
+     * and it hasn't changed since.
+     */
+    boolean isRendered() {
+        return store != null ? renderedRef != TextStore.NONE : renderedDescription != null;
+    }
+
+    /**
+     * Moves the description into the store, and keeps the text of the
+     * entry and of everything added to it there from now on.
+     */
+    void setTextStore(TextStore store) {
+        if (this.store != null || store == null) {
+            return;
+        }
+        descriptionRef = store.add(getPlainDescription());
+        description = null;
+        renderedDescription = null;
+        this.store = store;
+
+        if (constructor != null) {
+            constructor.setTextStore(store);
+        }
+        if (parameters != null) {
+            for (Parameter parameter : parameters) {
+                parameter.setTextStore(store);
+            }
+        }
+        if (returnValue != null) {
+            returnValue.setTextStore(store);
+        }
+        setTextStore(methods, store);
+        setTextStore(properties, store);
+        setTextStore(nestedNamespaces, store);
+    }
+
+    private static void setTextStore(Set<Entry> entries, TextStore store) {
+        if (entries != null) {
+            for (Entry entry : entries) {
+                entry.setTextStore(store);
+            }
+        }
+    }
+
+    /**
+     * Replaces the sets, buckets and parameters of the entry, and of
+     * everything in it, with read only exactly sized arrays in the same
+     * order. Adding anything to a frozen entry throws
+     * UnsupportedOperationException. Freezing it again does nothing.
+     */
+    void freeze() {
+        if (frozen) {
+            return;
+        }
+        frozen = true;
+        if (constructor != null) {
+            constructor.freeze();
+        }
+        methods = freeze(methods);
+        properties = freeze(properties);
+        nestedNamespaces = freeze(nestedNamespaces);
+        freeze(methodBuckets);
+        freeze(propertyBuckets);
+        if (parameters != null) {
+            // fixed size, so it can't be added to either
+            parameters = Arrays.asList(parameters.toArray(new Parameter[parameters.size()]));
+        }
+    }
+
+    private static Set<Entry> freeze(Set<Entry> entries) {
+        if (entries == null) {
+            return null;
+        }
+        for (Entry entry : entries) {
+            entry.freeze();
+        }
+        return SortedArraySet.copyOf((SortedSet<Entry>) entries);
+    }
+
+    private static void freeze(Map<Annotation, SortedSet<Entry>> buckets) {
+        if (buckets != null) {
+            for (Map.Entry<Annotation, SortedSet<Entry>> bucket : buckets.entrySet()) {
+                bucket.setValue(SortedArraySet.copyOf(bucket.getValue()));
+            }
         }
     }
 
@@ -70,6 +278,7 @@ public class Entry implements Comparable<Entry> {
     public void setReturnValue(ReturnValue returnValue) {
         if (this.returnValue != null) {
             this.returnValue = returnValue;
+            returnValue.setTextStore(store);
         }
     }
 
@@ -83,27 +292,81 @@ public class Entry implements Comparable<Entry> {
     public void addParameter(Parameter parameter) {
         if (parameters != null) {
             parameters.add(parameter);
+            parameter.setTextStore(store);
         }
     }
 
     public void addProperty(Entry property) {
-        if (properties != null) {
-            properties.add(property);
+        if (properties != null && properties.add(adopt(property))) {
+            addToBucket(propertyBuckets, property);
+            property.setTextStore(store);
+            anchorApart(property);
         }
     }
 
     public void addNestedNamespace(Entry entry) {
         if (nestedNamespaces != null) {
             nestedNamespaces.add(entry);
+            entry.setTextStore(store);
         }
     }
 
     public void addMethod(MethodEntry method) {
-        if (methods != null) {
-            methods.add(method);
+        if (methods != null && methods.add(adopt(method))) {
+            addToBucket(methodBuckets, method);
+            method.setTextStore(store);
+            anchorApart(method);
+        }
+    }
+
+    /* Sets the anchor of a static member apart from an instance member
+       with the same name. Members are sorted by name first, so the ones
+       with the same name are next to where the member is. */
+    private void anchorApart(Entry member) {
+        anchorApart(member, methods);
+        anchorApart(member, properties);
+    }
+
+    private static void anchorApart(Entry member, Set<Entry> members) {
+        if (members == null) {
+            return;
+        }
+        NavigableSet<Entry> sorted = (NavigableSet<Entry>) members;
+        for (Entry other : sorted.tailSet(member, false)) {
+            if (!other.name.equals(member.name)) {
+                break;
+            }
+            anchorApart(member, other);
+        }
+        for (Entry other : sorted.headSet(member, false).descendingSet()) {
+            if (!other.name.equals(member.name)) {
+                break;
+            }
+            anchorApart(member, other);
         }
     }
 
+    private static void anchorApart(Entry member, Entry other) {
+        if (member.isStatic() != other.isStatic()) {
+            (member.isStatic() ? member : other).anchoredApart = true;
+        }
+    }
+
+    /* Makes this the parent of the member, before it is sorted into a set */
+    private Entry adopt(Entry member) {
+        member.parentName = name;
+        return member;
+    }
+
+    private static void addToBucket(Map<Annotation, SortedSet<Entry>> buckets, Entry entry) {
+        SortedSet<Entry> bucket = buckets.get(entry.getAnnotationType());
+        if (bucket == null) {
+            bucket = new TreeSet<>();
+            buckets.put(entry.getAnnotationType(), bucket);
+        }
+        bucket.add(entry);
+    }
+
     public Annotation getAnnotationType() {
         return annotation;
     }
@@ -112,11 +375,40 @@ public class Entry implements Comparable<Entry> {
         return name;
     }
 
+    /**
+     * Returns the description with its links rendered. The links are
+     * resolved once parsing has finished, a description that changes after
+     * that has its links rendered without checking that they exist.
+     * A description kept in a TextStore is only rendered when the links
+     * are resolved, and throws IllegalStateException until it has been.
+     */
     public String getDescription() {
-        return Line.handleLinks(description);
+        if (store != null) {
+            if (renderedRef == TextStore.NONE) {
+                throw new IllegalStateException("The links of " + name + " haven't been resolved");
+            }
+            return store.get(renderedRef);
+        }
+        if (renderedDescription == null) {
+            renderedDescription = Line.handleLinks(getPlainDescription());
+        }
+        return renderedDescription;
     }
 
+    /**
+     * Returns the default with its links rendered.
+     */
     public String getDefault() {
+        if (renderedDefault == null && _default != null) {
+            renderedDefault = Line.handleLinks(_default);
+        }
+        return renderedDefault;
+    }
+
+    /**
+     * Returns the default as it was given.
+     */
+    public String getPlainDefault() {
         return _default;
     }
 
@@ -159,48 +451,65 @@ public class Entry implements Comparable<Entry> {
         return null;
     }
 
+    /**
+     * Returns a read only Set of the methods of the given types.
+     */
     public Set<Entry> getMethods(Annotation... typeFilters) {
-        return getFilteredSet(methods, typeFilters);
+        return getBuckets(methodBuckets, typeFilters);
     }
 
+    /**
+     * Returns a read only Set of the properties of the given types.
+     */
     public Set<Entry> getProperties(Annotation... typeFilters) {
-        return getFilteredSet(properties, typeFilters);
+        return getBuckets(propertyBuckets, typeFilters);
     }
 
     /**
-     * Gets either the methods or properties or constructor.
+     * Gets either the methods or properties or constructor, as a read only Set.
+     * Entries without a constructor, like namespaces, just have none.
      */
     public Set<Entry> getMembers(Annotation... typeFilters) {
-        Set<Entry> set = getMethods(typeFilters);
-        set.addAll(getProperties(typeFilters));
-        if (Arrays.asList(typeFilters).contains(Annotation.CONSTRUCTOR)) {
-            set.add(constructor);
-        }
-        return set;
-    }
-
-    private Set<Entry> getFilteredSet(Set<Entry> entrySet, Annotation... typeFilters) {
-        if (entrySet == null) {
-            return new TreeSet<Entry>();
-        }
-        Set<Entry> set = new TreeSet<>(entrySet);
-        boolean keep;
-        Entry entry;
-        Iterator<Entry> it = set.iterator();
-        while (it.hasNext()) {
-            entry = it.next();
-            keep = false;
-            for (Annotation type : typeFilters) {
-                if (entry.isAnnotationType(type)) {
-                    keep = true;
-                }
+        if (typeFilters.length == 1) {
+            Annotation type = typeFilters[0];
+            if (type == Annotation.CONSTRUCTOR) {
+                return constructor != null ? Collections.singleton(constructor) : EMPTY;
             }
-            if (!keep) {
-                it.remove();
+            Set<Entry> set = getMethods(type);
+            return set.isEmpty() ? getProperties(type) : set;
+        }
+
+        Set<Entry> set = new TreeSet<>(getMethods(typeFilters));
+        set.addAll(getProperties(typeFilters));
+        for (Annotation type : typeFilters) {
+            if (type == Annotation.CONSTRUCTOR && constructor != null) {
+                set.add(constructor);
             }
         }
+        return Collections.unmodifiableSet(set);
+    }
 
-        return set;
+    /**
+     * Returns the bucket of the only type as is, or the
+     * buckets of several types merged into one Set.
+     */
+    private static Set<Entry> getBuckets(Map<Annotation, SortedSet<Entry>> buckets, Annotation... typeFilters) {
+        if (buckets == null) {
+            return EMPTY;
+        }
+        if (typeFilters.length == 1) {
+            SortedSet<Entry> bucket = buckets.get(typeFilters[0]);
+            return bucket != null ? Collections.unmodifiableSortedSet(bucket) : EMPTY;
+        }
+
+        SortedSet<Entry> set = new TreeSet<>();
+        SortedSet<Entry> bucket;
+        for (Annotation type : typeFilters) {
+            if ((bucket = buckets.get(type)) != null) {
+                set.addAll(bucket);
+            }
+        }
+        return Collections.unmodifiableSortedSet(set);
     }
 
     public boolean isAnnotationType(Annotation type) {
@@ -213,7 +522,7 @@ public class Entry implements Comparable<Entry> {
           +"\nEntry"
           +"\n  annotation   : [" + annotation + "]"
           +"\n  name         : [" + name + "]"
-          +"\n  description  : [" + description + "]";
+          +"\n  description  : [" + getPlainDescription() + "]";
           if (constructor != null) {
             s += "\n  Constructor:\n" + constructor.toString();
           }
@@ -234,9 +543,57 @@ public class Entry implements Comparable<Entry> {
         return s;
     }
 
+    /**
+     * Returns the name of the entry this is a member of,
+     * or "" if it isn't a member.
+     */
+    public String getParentName() {
+        return parentName;
+    }
+
+    /**
+     * Returns the id of the entry on its page, which is its name. Only a
+     * static member whose parent also has an instance member with the same
+     * name is set apart by the '.' of its qualified name, ex: draw for
+     * Circle#draw and .draw for Circle.draw.
+     */
+    public String getAnchor() {
+        return anchoredApart ? "." + name : name;
+    }
+
+    /**
+     * Returns true for static methods and properties.
+     */
+    public boolean isStatic() {
+        return annotation == Annotation.STATICMETHOD || annotation == Annotation.STATICPROPERTY;
+    }
+
+    /**
+     * Compares by name, then parent name, then kind. Siblings share
+     * their parent's name String, so it is only compared across parents.
+     */
     @Override
     public int compareTo(Entry o) {
-        return name.compareTo(o.getName());
+        int c = Long.compareUnsigned(namePrefix, o.namePrefix);
+        if (c == 0) {
+            c = name.compareTo(o.name);
+        }
+        if (c == 0 && parentName != o.parentName) {
+            c = parentName.compareTo(o.parentName);
+        }
+        if (c == 0) {
+            c = annotation.compareTo(o.annotation);
+        }
+        return c;
+    }
+
+    /* Packs the first four chars of the name, padded with 0 */
+    private static long prefix(String name) {
+        long prefix = 0;
+        for (int i = 0; i < 4; i++) {
+            prefix = (prefix << 16) | (i < name.length() ? name.charAt(i) : 0);
+        }
+        return prefix;
     }
 
     public boolean equals(String o) {
@@ -1,9 +1,15 @@
 package com.mangoshine.doc.construct;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.SortedSet;
 import java.util.TreeSet;
 
 import com.mangoshine.doc.annotation.Annotation;
@@ -11,30 +17,54 @@ import com.mangoshine.doc.annotation.Annotation;
 public class EntrySet {
     /**
      * The way to uniquely identify entries is by
-     * class.entry or if it is the class itself then just class.
+     * class#entry, or class.entry for static members,
+     * or if it is the class itself then just class.
      * This is because there may be multiple entries that share
      * the same entry.getName() (this would happen if two classes
-     * both have a method or property with the same name)
+     * both have a method or property with the same name, or if
+     * a class has a static and an instance member with the same name)
      */
-    private Set<Entry> entries = new TreeSet<>();
+    private Map<String, Entry> entriesMap = new HashMap<>();
 
-    private Map<String, Entry> entriesMap = new TreeMap<>();
+    /* The top level entries by name. The first entry added with a
+       name is kept, the same as adding to a TreeSet. */
+    private Map<String, Entry> entries = new LinkedHashMap<>();
+
+    /* The top level entries of each annotation type, in the order added */
+    private Map<Annotation, List<Entry>> buckets = new EnumMap<>(Annotation.class);
+
+    /* Sorted arrays, built when first asked for and dropped on every change */
+    private Map<Set<Annotation>, SortedSet<Entry>> views = new HashMap<>();
+    private SortedSet<Entry> allView = null;
 
     public EntrySet() {
 
     }
 
     /**
-     * Add an entry to the set of entries.
+     * Add an entry to the set of entries. A class and a namespace
+     * can't have the same name, since they would share their key
+     * and their page, and adding the second throws
+     * IllegalArgumentException.
      */
     public void add(Entry entry) {
-        entries.add(entry);
+        Entry other = entries.get(entry.getName());
+        if (other != null && other.getAnnotationType() != entry.getAnnotationType()) {
+            throw new IllegalArgumentException(entry.getName() + " is declared as both a "
+                                               + kind(other) + " and a " + kind(entry));
+        }
+        if (entries.putIfAbsent(entry.getName(), entry) == null) {
+            buckets.computeIfAbsent(entry.getAnnotationType(), k -> new ArrayList<>()).add(entry);
+            views.clear();
+        }
 
         entriesMap.put(generateKey(entry), entry);
+        allView = null;
     }
 
     public void add(String parentName, Entry entry) {
         entriesMap.put(generateKey(parentName, entry), entry);
+        allView = null;
     }
 
     /**
@@ -44,63 +74,94 @@ public class EntrySet {
         return entriesMap.get(entryName);
     }
 
+    /**
+     * Returns the member of the parent with the given name, the
+     * instance member if there is also a static one.
+     */
     public Entry get(String parentName, String entryName) {
-        return entriesMap.get(generateKey(parentName, entryName));
+        Entry entry = entriesMap.get(generateKey(Annotation.INSTANCEMETHOD, parentName, entryName));
+        return entry != null ? entry : entriesMap.get(generateKey(Annotation.STATICMETHOD, parentName, entryName));
     }
 
     /**
-     * Returns a Set of all entries.
+     * Returns the top level entries, in the order added.
+     */
+    Collection<Entry> getTopLevel() {
+        return entries.values();
+    }
+
+    /**
+     * Returns every entry by its unique key.
+     */
+    Map<String, Entry> getKeyed() {
+        return entriesMap;
+    }
+
+    /**
+     * Puts the entry under the given unique key, replacing any other.
+     */
+    void put(String key, Entry entry) {
+        entriesMap.put(key, entry);
+        allView = null;
+    }
+
+    /**
+     * Returns a sorted, read only Set of all entries.
      */
     public Set<Entry> getEntries() {
-        Set<Entry> temp = new TreeSet<>();
-        for (Map.Entry<String, Entry> e : entriesMap.entrySet()) {
-            temp.add(e.getValue());
+        if (allView == null) {
+            allView = SortedArraySet.sortedCopyOf(entriesMap.values());
         }
-        return temp;
+        return allView;
     }
 
     /**
-     * Returns a Set of Entries where each is one of the types provided.
+     * Returns a sorted, read only Set of Entries where
+     * each is one of the types provided.
      */
     public Set<Entry> getEntries(Annotation... typeFilters) {
-        if (entries == null) {
-            return new TreeSet<Entry>();
-        }
-        Set<Entry> set = new TreeSet<>(entries);
-        boolean keep;
-        Entry entry;
-        Iterator<Entry> it = set.iterator();
-        while (it.hasNext()) {
-            entry = it.next();
-            keep = false;
-            for (Annotation type : typeFilters) {
-                if (entry.isAnnotationType(type)) {
-                    keep = true;
+        Set<Annotation> types = typeFilters.length == 0
+                                ? EnumSet.noneOf(Annotation.class)
+                                : EnumSet.of(typeFilters[0], typeFilters);
+        SortedSet<Entry> view = views.get(types);
+        if (view == null) {
+            List<Entry> list = new ArrayList<>();
+            List<Entry> bucket;
+            for (Annotation type : types) {
+                if ((bucket = buckets.get(type)) != null) {
+                    list.addAll(bucket);
                 }
             }
-            if (!keep) {
-                it.remove();
-            }
+            view = SortedArraySet.sortedCopyOf(list);
+            views.put(types, view);
         }
-
-        return set;
+        return view;
     }
 
     static public String generateKey(String parentName, Entry entry) {
-        return generateKey(parentName, entry.getName());
+        return generateKey(entry.getAnnotationType(), parentName, entry.getName());
     }
 
     static public String generateKey(Entry entry) {
         return entry.getName();
     }
 
-    static public String generateKey(String parentName, String entryName) {
-        return parentName + "." + entryName;
+    /**
+     * Returns the key of a member of the given type, ex: Circle#draw,
+     * or Circle.clear for static methods and properties.
+     */
+    static public String generateKey(Annotation type, String parentName, String entryName) {
+        boolean isStatic = type == Annotation.STATICMETHOD || type == Annotation.STATICPROPERTY;
+        return parentName + (isStatic ? "." : "#") + entryName;
+    }
+
+    private static String kind(Entry entry) {
+        return entry.getAnnotationType().name().toLowerCase();
     }
 
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (Entry entry : entries) {
+        for (Entry entry : new TreeSet<>(entries.values())) {
             sb.append(entry.toString());
         }
         return sb.toString();
@@ -0,0 +1,304 @@
+package com.mangoshine.doc.construct;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import com.mangoshine.doc.annotation.Annotation;
+import com.mangoshine.doc.dom.DOMNode;
+
+/**
+ * The symbol table the links in descriptions are resolved against.
+ * Links are specified by surrounding carets, ex: Handler for <Circle>.
+ *
+ * Every class and namespace has its own page, and every member is an
+ * anchor on its parent's page. A member is known by its qualified name,
+ * Circle.clear for static methods and properties and Circle#draw for
+ * everything else, and also by the other form when nothing else already
+ * has that name. The anchor is the member's name, except for a static
+ * member that shares its name with an instance member, ex: Circle.draw
+ * and Circle#draw, which is anchored by its '.' as well.
+ *
+ * The table is built once parsing has finished, and every description
+ * is then rendered against it, so each link is looked up once. A link
+ * to a name that isn't in the table is rendered without an href. The
+ * rest of the text is escaped, other than the reserved tags, so the
+ * rendered description is HTML that can be written as it is.
+ * The table remembers where each page is referenced from, and
+ * which pages link to each name.
+ */
+public class LinkTable {
+    /* Tags that can be used in descriptions, which aren't links */
+    private static final Set<String> RESERVED = new HashSet<>();
+    static {
+        RESERVED.add("p");
+        RESERVED.add("/p");
+        RESERVED.add("tt");
+        RESERVED.add("/tt");
+    }
+
+    /* Every page and member, by the names they can be linked to by */
+    private final Map<String, Target> targets = new HashMap<>();
+
+    /* Where each page is referenced from, by page name */
+    private final Map<String, SortedSet<Target>> referencedBy = new HashMap<>();
+
+    /* The pages that link to each name, whether or not it was found */
+    private final Map<String, Set<String>> linkingPages = new HashMap<>();
+
+    /**
+     * Builds the table for the Documentation and renders
+     * every description's links against it.
+     */
+    static LinkTable resolve(Documentation doc) {
+        LinkTable links = new LinkTable();
+        Set<Entry> pages = doc.getEntries(Annotation.CLASS, Annotation.NAMESPACE);
+
+        for (Entry page : pages) {
+            links.targets.put(page.getName(), new Target(page.getName(), page.getName(), null));
+        }
+        for (Entry page : pages) {
+            for (Entry member : members(page)) {
+                Target target = memberTarget(page, member);
+                links.targets.putIfAbsent(target.name, target);
+            }
+        }
+        // the other form of each member's name, unless it is taken
+        for (Target target : new HashSet<>(links.targets.values())) {
+            if (target.anchor != null) {
+                char separator = target.name.charAt(target.page.length()) == '.' ? '#' : '.';
+                links.targets.putIfAbsent(target.page + separator
+                                          + target.name.substring(target.page.length() + 1), target);
+            }
+        }
+
+        Target from;
+        for (Entry page : pages) {
+            from = links.targets.get(page.getName());
+            page.renderLinks(links, from);
+            if (page.getConstructor() != null) {
+                page.getConstructor().renderLinks(links, from);
+            }
+            for (Entry member : members(page)) {
+                member.renderLinks(links, memberTarget(page, member));
+            }
+        }
+        // and everything that isn't on a page, so every description is rendered
+        for (Entry entry : doc.getEntrySet().getKeyed().values()) {
+            renderUnrendered(links, entry);
+        }
+
+        return links;
+    }
+
+    private static void renderUnrendered(LinkTable links, Entry entry) {
+        if (!entry.isRendered()) {
+            entry.renderLinks(links, null);
+        }
+        if (entry.getConstructor() != null) {
+            renderUnrendered(links, entry.getConstructor());
+        }
+        for (Entry member : members(entry)) {
+            renderUnrendered(links, member);
+        }
+    }
+
+    /* The methods, events and properties of the page */
+    private static List<Entry> members(Entry page) {
+        List<Entry> members = new ArrayList<>();
+        if (page.getMethods() != null) {
+            members.addAll(page.getMethods());
+        }
+        if (page.getProperties() != null) {
+            members.addAll(page.getProperties());
+        }
+        return members;
+    }
+
+    private static Target memberTarget(Entry page, Entry member) {
+        char separator = member.isStatic() ? '.' : '#';
+        return new Target(page.getName() + separator + member.getName(), page.getName(), member.getAnchor());
+    }
+
+    /**
+     * Returns the target with the given name, or null if there is none.
+     */
+    public Target get(String name) {
+        return targets.get(name);
+    }
+
+    /**
+     * Returns where the page is referenced from, other than from itself,
+     * sorted by name.
+     */
+    public Set<Target> getReferencedBy(String page) {
+        SortedSet<Target> set = referencedBy.get(page);
+        return set != null ? Collections.unmodifiableSortedSet(set) : Collections.<Target>emptySet();
+    }
+
+    /**
+     * Returns the pages that are rendered differently against the other
+     * table, because one of their links resolves differently or because
+     * they are referenced from somewhere else.
+     */
+    public Set<String> changedPages(LinkTable other) {
+        Set<String> pages = new HashSet<>();
+
+        Set<String> names = new HashSet<>(linkingPages.keySet());
+        names.addAll(other.linkingPages.keySet());
+        for (String name : names) {
+            if (!Objects.equals(get(name), other.get(name))) {
+                addAll(pages, linkingPages.get(name));
+                addAll(pages, other.linkingPages.get(name));
+            }
+        }
+
+        Set<String> referenced = new HashSet<>(referencedBy.keySet());
+        referenced.addAll(other.referencedBy.keySet());
+        for (String page : referenced) {
+            if (!getReferencedBy(page).equals(other.getReferencedBy(page))) {
+                pages.add(page);
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * Renders the links in the text, which appears at the given target,
+     * and escapes the rest of it. ex: Handler for <Circle>.
+     */
+    String render(String text, Target from) {
+        int open = text.indexOf('<');
+        if (open < 0) {
+            return DOMNode.escape(text);
+        }
+
+        StringBuilder sb = new StringBuilder(text.length() + 64);
+        int start = 0;
+        int close;
+        String name;
+        Target target;
+        while (open > -1 && (close = text.indexOf('>', open+1)) > -1) {
+            name = text.substring(open+1, close);
+            // a second < starts the link again
+            int reopen = name.lastIndexOf('<');
+            if (reopen > -1) {
+                open += reopen+1;
+                name = name.substring(reopen+1);
+            }
+            DOMNode.escape(text, start, open, sb);
+            if (RESERVED.contains(name)) {
+                sb.append(text, open, close+1);
+            } else if (!isName(name)) {
+                DOMNode.escape(text, open, close+1, sb);
+            } else {
+                target = targets.get(name);
+                if (target != null) {
+                    new DOMNode("tt")
+                        .appendNode(new DOMNode("a", name)
+                            .addAttribute("href", target.getHref()))
+                        .appendTo(sb);
+                    reference(target, from);
+                } else {
+                    new DOMNode("tt", name).appendTo(sb);
+                }
+                link(name, from);
+            }
+            start = close+1;
+            open = text.indexOf('<', start);
+        }
+        DOMNode.escape(text, start, text.length(), sb);
+
+        return sb.toString();
+    }
+
+    /* Returns true if the text between the carets can be a name */
+    private static boolean isName(String name) {
+        if (name.length() == 0) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) <= ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void reference(Target target, Target from) {
+        if (from != null && !target.page.equals(from.page)) {
+            referencedBy.computeIfAbsent(target.page, k -> new TreeSet<>()).add(from);
+        }
+    }
+
+    private void link(String name, Target from) {
+        if (from != null) {
+            linkingPages.computeIfAbsent(name, k -> new HashSet<>()).add(from.page);
+        }
+    }
+
+    private static void addAll(Set<String> set, Set<String> values) {
+        if (values != null) {
+            set.addAll(values);
+        }
+    }
+
+    /**
+     * A page, or a member anchored on its parent's page.
+     */
+    public static class Target implements Comparable<Target> {
+        private final String name;
+        private final String page;
+        private final String anchor;
+
+        Target(String name, String page, String anchor) {
+            this.name = name;
+            this.page = page;
+            this.anchor = anchor;
+        }
+
+        /**
+         * Returns the qualified name, ex: Circle#draw
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the name of the page the target is on.
+         */
+        public String getPage() {
+            return page;
+        }
+
+        public String getHref() {
+            return anchor != null ? page + ".html#" + anchor : page + ".html";
+        }
+
+        @Override
+        public int compareTo(Target o) {
+            return name.compareTo(o.name);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Target)) {
+                return false;
+            }
+            Target t = (Target) o;
+            return name.equals(t.name) && page.equals(t.page) && Objects.equals(anchor, t.anchor);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+}
\ No newline at end of file
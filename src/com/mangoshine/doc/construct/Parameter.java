@@ -9,6 +9,17 @@ public class Parameter {
     private String name;
     private String argType;
     private String description;
+    /* Collects the description while it is being appended to,
+       null once it has been frozen into the description String */
+    private StringBuilder descriptionBuilder;
+    /* The description with its links rendered, null until asked for */
+    private String renderedDescription;
+    /* Where the description is kept instead, null to keep it as a String */
+    private TextStore store;
+    private long descriptionRef = TextStore.EMPTY;
+    /* The stored description with its links rendered, the same ref if
+       it has none, TextStore.NONE until they are resolved */
+    private long renderedRef = TextStore.NONE;
 
     public Parameter(String name, String argType, String description) {
         this.name = name;
@@ -24,16 +35,77 @@ public class Parameter {
         return this.argType;
     }
 
+    /**
+     * Returns the description with its links rendered.
+     * The links are only rendered again after the description changes,
+     * or, if it is kept in a TextStore, when they are resolved again.
+     */
     public String getDescription() {
-        return Line.handleLinks(this.description);
+        if (store != null) {
+            if (renderedRef == TextStore.NONE) {
+                throw new IllegalStateException("The links of parameter " + name + " haven't been resolved");
+            }
+            return store.get(renderedRef);
+        }
+        if (renderedDescription == null) {
+            renderedDescription = Line.handleLinks(getPlainDescription());
+        }
+        return renderedDescription;
     }
 
+    /**
+     * Returns the plain description, first freezing what has been
+     * appended so far into a single String.
+     */
     public String getPlainDescription() {
+        if (store != null) {
+            return store.get(descriptionRef);
+        }
+        if (descriptionBuilder != null) {
+            description = descriptionBuilder.toString();
+            descriptionBuilder = null;
+        }
         return this.description;
     }
 
+    /**
+     * Renders the links of the description against the table,
+     * as it appears at the given target.
+     */
+    void renderLinks(LinkTable links, LinkTable.Target from) {
+        String plain = getPlainDescription();
+        String rendered = links.render(plain, from);
+        if (store != null) {
+            renderedRef = rendered.equals(plain) ? descriptionRef : store.add(rendered);
+        } else {
+            renderedDescription = rendered;
+        }
+    }
+
+    /**
+     * Moves the description into the store, and keeps it there from now on.
+     */
+    void setTextStore(TextStore store) {
+        if (this.store != null || store == null) {
+            return;
+        }
+        descriptionRef = store.add(getPlainDescription());
+        description = null;
+        renderedDescription = null;
+        this.store = store;
+    }
+
     public void appendToDescription(String text) {
-        this.description = this.description + " " + text;
+        if (store != null) {
+            descriptionRef = store.append(store.append(descriptionRef, " "), text);
+            renderedRef = TextStore.NONE;
+            return;
+        }
+        if (descriptionBuilder == null) {
+            descriptionBuilder = new StringBuilder(description);
+        }
+        descriptionBuilder.append(' ').append(text);
+        renderedDescription = null;
     }
 
     public void setArgType(String argType) {
@@ -41,6 +113,6 @@ public class Parameter {
     }
 
     public String toString() {
-        return String.format("{%s} %s : %s", argType, name, description);
+        return String.format("{%s} %s : %s", argType, name, getPlainDescription());
     }
 }
\ No newline at end of file
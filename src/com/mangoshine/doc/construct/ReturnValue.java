@@ -2,6 +2,12 @@ package com.mangoshine.doc.construct;
 
 public class ReturnValue {
     private String description, type;
+    /* Collects the description while it is being appended to,
+       null once it has been frozen into the description String */
+    private StringBuilder descriptionBuilder;
+    /* Where the description is kept instead, null to keep it as a String */
+    private TextStore store;
+    private long descriptionRef = TextStore.EMPTY;
 
     public ReturnValue() {
         this("","");
@@ -13,14 +19,44 @@ public class ReturnValue {
     }
 
     public void appendToDescription(String text) {
-        this.description = this.description + " " + text;
+        if (store != null) {
+            descriptionRef = store.append(store.append(descriptionRef, " "), text);
+            return;
+        }
+        if (descriptionBuilder == null) {
+            descriptionBuilder = new StringBuilder(description);
+        }
+        descriptionBuilder.append(' ').append(text);
+    }
+
+    /**
+     * Moves the description into the store, and keeps it there from now on.
+     */
+    void setTextStore(TextStore store) {
+        if (this.store != null || store == null) {
+            return;
+        }
+        descriptionRef = store.add(getDescription());
+        description = null;
+        this.store = store;
     }
 
     public void setType(String text) {
         this.type = text;
     }
 
+    /**
+     * Returns the description, first freezing what has been
+     * appended so far into a single String.
+     */
     public String getDescription() {
+        if (store != null) {
+            return store.get(descriptionRef);
+        }
+        if (descriptionBuilder != null) {
+            description = descriptionBuilder.toString();
+            descriptionBuilder = null;
+        }
         return this.description;
     }
 
@@ -31,8 +67,15 @@ public class ReturnValue {
         return this.type;
     }
 
+    /**
+     * Returns the type as it was given, which may be empty.
+     */
+    String getPlainType() {
+        return this.type;
+    }
+
     public boolean isEmpty() {
-        return (description.length() == 0 && type.length() == 0);
+        return (getDescription().length() == 0 && type.length() == 0);
     }
 
     public String toString() {
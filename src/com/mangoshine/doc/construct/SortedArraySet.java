@@ -0,0 +1,164 @@
+package com.mangoshine.doc.construct;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+
+/**
+ * A read only SortedSet kept in an exactly sized, sorted array.
+ *
+ * The sets of a frozen Documentation are replaced with these, so
+ * that rendering walks arrays rather than the nodes of a TreeSet.
+ * Elements are ordered and told apart by their natural ordering,
+ * the same as in a TreeSet without a Comparator. Sub sets share
+ * the array of the set they were taken from.
+ */
+class SortedArraySet<E extends Comparable<? super E>> extends AbstractSet<E> implements SortedSet<E> {
+    private final Object[] array;
+    private final int from;
+    private final int to;
+
+    private SortedArraySet(Object[] array, int from, int to) {
+        this.array = array;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Returns the set as a SortedArraySet, copying it
+     * if it isn't one already.
+     */
+    static <E extends Comparable<? super E>> SortedSet<E> copyOf(SortedSet<E> set) {
+        if (set instanceof SortedArraySet) {
+            return set;
+        }
+        Object[] array = set.toArray();
+        return new SortedArraySet<>(array, 0, array.length);
+    }
+
+    /**
+     * Returns the elements sorted into a SortedArraySet. Of the elements
+     * that compare as equal, the first one is kept, as TreeSet.addAll would.
+     */
+    static <E extends Comparable<? super E>> SortedSet<E> sortedCopyOf(Collection<? extends E> c) {
+        Object[] array = c.toArray();
+        // stable, so equal elements keep their order
+        Arrays.sort(array);
+        int size = 0;
+        for (int i = 0; i < array.length; i++) {
+            if (size == 0 || compare(array[size-1], array[i]) != 0) {
+                array[size++] = array[i];
+            }
+        }
+        return new SortedArraySet<>(size == array.length ? array : Arrays.copyOf(array, size), 0, size);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object a, Object b) {
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E at(int i) {
+        return (E) array[i];
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int i = from;
+
+            @Override
+            public boolean hasNext() {
+                return i < to;
+            }
+
+            @Override
+            public E next() {
+                if (i >= to) {
+                    throw new NoSuchElementException();
+                }
+                return at(i++);
+            }
+        };
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        try {
+            int i = lowerBound(o);
+            return i < to && compare(array[i], o) == 0;
+        } catch (ClassCastException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public Object[] toArray() {
+        return Arrays.copyOfRange(array, from, to);
+    }
+
+    @Override
+    public Comparator<? super E> comparator() {
+        return null;
+    }
+
+    @Override
+    public E first() {
+        if (from == to) {
+            throw new NoSuchElementException();
+        }
+        return at(from);
+    }
+
+    @Override
+    public E last() {
+        if (from == to) {
+            throw new NoSuchElementException();
+        }
+        return at(to-1);
+    }
+
+    @Override
+    public SortedSet<E> subSet(E fromElement, E toElement) {
+        if (fromElement.compareTo(toElement) > 0) {
+            throw new IllegalArgumentException("fromElement > toElement");
+        }
+        return new SortedArraySet<>(array, lowerBound(fromElement), lowerBound(toElement));
+    }
+
+    @Override
+    public SortedSet<E> headSet(E toElement) {
+        return new SortedArraySet<>(array, from, lowerBound(toElement));
+    }
+
+    @Override
+    public SortedSet<E> tailSet(E fromElement) {
+        return new SortedArraySet<>(array, lowerBound(fromElement), to);
+    }
+
+    /* Returns the index of the first element that isn't less than o */
+    private int lowerBound(Object o) {
+        int low = from;
+        int high = to;
+        int mid;
+        while (low < high) {
+            mid = (low + high) >>> 1;
+            if (compare(array[mid], o) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,165 @@
+package com.mangoshine.doc.construct;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compact store for the descriptions of a huge documentation.
+ *
+ * Text is encoded as UTF-8 into large byte arrays shared by every
+ * Entry, Parameter and ReturnValue, which only keep a long ref to
+ * where their text is. That saves both the two bytes per char of a
+ * String and the headers of a String and its array per description.
+ * A String is only decoded when the text is asked for.
+ *
+ * A ref holds the position of the text in its upper 40 bits and its
+ * length in bytes in the lower 24 bits. Appending to the text that was
+ * stored last grows it in place, anything else is first copied to the
+ * end of the store, so a description that is built up a line at a time
+ * while nothing else is stored stays in one piece.
+ *
+ * Nothing is ever removed, the store is dropped as a whole along with
+ * the Documentation it belongs to. It is not thread safe.
+ */
+public class TextStore {
+    /* A ref to the empty text, which is never stored */
+    public static final long EMPTY = 0;
+
+    /* Not a ref, for text that hasn't been made yet */
+    public static final long NONE = -1;
+
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int LENGTH_BITS = 24;
+    private static final long MAX_LENGTH = (1L << LENGTH_BITS) - 1;
+
+    private final List<byte[]> chunks = new ArrayList<>();
+
+    /* The chunk being written to, and where in it */
+    private byte[] chunk;
+    private int offset = CHUNK_SIZE;
+
+    /* The number of bytes stored */
+    private long size = 0;
+
+    /**
+     * Stores the text, returning its ref.
+     */
+    public long add(String text) {
+        return append(EMPTY, text);
+    }
+
+    /**
+     * Appends the text to the text with the given ref,
+     * returning the ref of the whole.
+     */
+    public long append(long ref, String text) {
+        if (text.length() == 0) {
+            return ref;
+        }
+        long start = position(ref);
+        int length = length(ref);
+        if (length > 0 && start + length != size) {
+            start = copyToEnd(start, length);
+        } else if (length == 0) {
+            start = size;
+        }
+
+        long end = size;
+        char c;
+        for (int i = 0; i < text.length(); i++) {
+            c = text.charAt(i);
+            if (c < 0x80) {
+                put(c);
+            } else if (c < 0x800) {
+                put(0xC0 | (c >> 6));
+                put(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i+1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i+1))) {
+                int cp = Character.toCodePoint(c, text.charAt(++i));
+                put(0xF0 | (cp >> 18));
+                put(0x80 | ((cp >> 12) & 0x3F));
+                put(0x80 | ((cp >> 6) & 0x3F));
+                put(0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // an unpaired surrogate, as String.getBytes would write it
+                put('?');
+            } else {
+                put(0xE0 | (c >> 12));
+                put(0x80 | ((c >> 6) & 0x3F));
+                put(0x80 | (c & 0x3F));
+            }
+        }
+
+        long total = length + (size - end);
+        if (total > MAX_LENGTH) {
+            throw new IllegalArgumentException("Text is longer than " + MAX_LENGTH + " bytes");
+        }
+        return (start << LENGTH_BITS) | total;
+    }
+
+    /**
+     * Decodes the text with the given ref.
+     */
+    public String get(long ref) {
+        int length = length(ref);
+        if (length == 0) {
+            return "";
+        }
+        long start = position(ref);
+        int index = (int) (start / CHUNK_SIZE);
+        int from = (int) (start % CHUNK_SIZE);
+        if (from + length <= CHUNK_SIZE) {
+            return new String(chunks.get(index), from, length, StandardCharsets.UTF_8);
+        }
+
+        // the text runs over into the next chunks
+        byte[] bytes = new byte[length];
+        int copied = 0;
+        int n;
+        while (copied < length) {
+            n = Math.min(length - copied, CHUNK_SIZE - from);
+            System.arraycopy(chunks.get(index++), from, bytes, copied, n);
+            copied += n;
+            from = 0;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the length in bytes of the text with the given ref.
+     */
+    public static int length(long ref) {
+        return (int) (ref & MAX_LENGTH);
+    }
+
+    /**
+     * Returns the number of bytes stored.
+     */
+    public long size() {
+        return size;
+    }
+
+    private static long position(long ref) {
+        return ref >>> LENGTH_BITS;
+    }
+
+    /* Copies the bytes to the end of the store, returning where they start */
+    private long copyToEnd(long start, int length) {
+        long end = size;
+        for (long i = start; i < start + length; i++) {
+            put(chunks.get((int) (i / CHUNK_SIZE))[(int) (i % CHUNK_SIZE)]);
+        }
+        return end;
+    }
+
+    private void put(int b) {
+        if (offset == CHUNK_SIZE) {
+            chunk = new byte[CHUNK_SIZE];
+            chunks.add(chunk);
+            offset = 0;
+        }
+        chunk[offset++] = (byte) b;
+        size++;
+    }
+}
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.mangoshine.doc.dom;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
@@ -10,10 +12,10 @@ import java.text.SimpleDateFormat;
 import com.mangoshine.doc.annotation.Annotation;
 import com.mangoshine.doc.construct.Documentation;
 import com.mangoshine.doc.construct.Entry;
+import com.mangoshine.doc.construct.LinkTable;
 import com.mangoshine.doc.construct.MethodEntry;
 import com.mangoshine.doc.construct.Parameter;
 import com.mangoshine.doc.util.Pair;
-import com.mangoshine.doc.writing.WriterHelper;
 
 /**
  * Responsible for generating parts of layout files.
@@ -24,53 +26,85 @@ import com.mangoshine.doc.writing.WriterHelper;
  * Methods that end in 'HTML' and return a String generate content that
  * goes inside an element, essentially the same as jQuery's html() function.
  * Methods that return a DOMNode object return the DOM element itself.
+ * Methods that start with 'write' stream the same content into an
+ * Appendable, such as the Writer of the page.
+ *
+ * Each build has its own DOMBuilder, which builds
+ * the pages from that build's Documentation.
  */
 public class DOMBuilder {
     /* Because the header and footer should be the same, keep
        a reference so they are not generated multiple times. */
-    private static String footerHTML = null;
-    private static String sidebarHTML = null;
+    private String footerHTML = null;
+    private String sidebarHTML = null;
 
     private static DOMPartialBuilder partialBuilder = DOMPartialBuilder.INSTANCE;
 
+    private final Documentation jsdoc;
+
+    public DOMBuilder(Documentation jsdoc) {
+        this.jsdoc = jsdoc;
+    }
+
+    /**
+     * Forgets the generated header and footer,
+     * so they are generated again from the current Documentation.
+     */
+    public void clearCache() {
+        footerHTML = null;
+        sidebarHTML = null;
+    }
+
     /**
      * Generates the HTML that goes inside the div element with
      * the id 'content', which is the {{content}} block of the
      * layout files.
+     * @param currentEntry - the entry the page is for, null for the index
      * @return a page's HTML content as a string
      */
-    static public String buildContentHTML() {
-        Entry currentEntry = WriterHelper.INSTANCE.currentEntry;
+    public String buildContentHTML(Entry currentEntry) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            writeContentHTML(currentEntry, sb);
+        } catch (IOException e) {
+            // a StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
 
+    /**
+     * Writes the {{content}} block of the page for the entry to the
+     * Appendable, one section at a time.
+     * @param currentEntry - the entry the page is for, null for the index
+     */
+    public void writeContentHTML(Entry currentEntry, Appendable out) throws IOException {
         if (currentEntry == null) {
-            return buildIndexContentHTML();
+            writeIndexContentHTML(out);
+            return;
         }
 
         // header
-        DOMNode contentHeader = partialBuilder.buildContentHeader(currentEntry);
-        StringBuilder sb = new StringBuilder(contentHeader.toString());
+        partialBuilder.buildContentHeader(currentEntry).writeTo(out);
 
         // body
-        sb.append(buildOverviewSection(currentEntry).toString());
-        sb.append(DOMNode.toString(buildSubSection("Summary", currentEntry, Annotation.NONE)));
-        sb.append(DOMNode.toString(buildSubSection("Constructor", currentEntry, Annotation.CONSTRUCTOR)));
-        sb.append(DOMNode.toString(buildSubSection("Instance Properties", currentEntry, Annotation.INSTANCEPROPERTY)));
-        sb.append(DOMNode.toString(buildSubSection("Static Properties", currentEntry, Annotation.STATICPROPERTY)));
-        sb.append(DOMNode.toString(buildSubSection("Instance Methods", currentEntry, Annotation.INSTANCEMETHOD)));
-        sb.append(DOMNode.toString(buildSubSection("Static Methods", currentEntry, Annotation.STATICMETHOD)));
-        sb.append(DOMNode.toString(buildSubSection("Events", currentEntry, Annotation.EVENT)));
-
-        return sb.toString();
+        buildOverviewSection(currentEntry).writeTo(out);
+        DOMNode.writeTo(buildSubSection("Summary", currentEntry, Annotation.NONE), out);
+        DOMNode.writeTo(buildSubSection("Constructor", currentEntry, Annotation.CONSTRUCTOR), out);
+        DOMNode.writeTo(buildSubSection("Instance Properties", currentEntry, Annotation.INSTANCEPROPERTY), out);
+        DOMNode.writeTo(buildSubSection("Static Properties", currentEntry, Annotation.STATICPROPERTY), out);
+        DOMNode.writeTo(buildSubSection("Instance Methods", currentEntry, Annotation.INSTANCEMETHOD), out);
+        DOMNode.writeTo(buildSubSection("Static Methods", currentEntry, Annotation.STATICMETHOD), out);
+        DOMNode.writeTo(buildSubSection("Events", currentEntry, Annotation.EVENT), out);
+        DOMNode.writeTo(buildReferencedBySection(currentEntry), out);
     }
 
-    static public String buildTitleHTML() {
-        Entry currentEntry = WriterHelper.INSTANCE.currentEntry;
-
+    public String buildTitleHTML(Entry currentEntry) {
         if (currentEntry == null) {
             return "MangoDocs";
         }
 
-        return currentEntry.getName();
+        return DOMNode.escape(currentEntry.getName());
     }
 
     /**
@@ -101,12 +135,7 @@ public class DOMBuilder {
             return buildSubSection(title, entry, partialBuilder.buildSummaryTables(entry));
         }
 
-        // getMembers() may return null if the entry type is NAMESPACE
-        try {
-            if (entry.getMembers(sectionType).size() == 0) {
-                return null;
-            }
-        } catch (Exception e) {
+        if (entry.getMembers(sectionType).isEmpty()) {
             return null;
         }
 
@@ -127,6 +156,29 @@ public class DOMBuilder {
         return buildSubSection("Overview", entry, partialBuilder.buildDescription(entry.getDescription()));
     }
 
+    /**
+     * Generates the DOMNode for the section listing what links to a page.
+     */
+    private DOMNode buildReferencedBySection(Entry entry) {
+        Set<LinkTable.Target> references = jsdoc.getLinks().getReferencedBy(entry.getName());
+        if (references.isEmpty()) {
+            return null;
+        }
+
+        DOMNode list = new DOMNode("ul").addAttribute("class", "referencedBy");
+        for (LinkTable.Target reference : references) {
+            list.appendNode(
+                new DOMNode("li")
+                    .appendNode(
+                        new DOMNode("a", reference.getName())
+                            .addAttribute("href", reference.getHref())
+                    )
+            );
+        }
+
+        return buildSubSection("Referenced by", entry, list);
+    }
+
     /**
      * Generates the DOMNode for the Methods sections on a class page.
      */
@@ -182,11 +234,11 @@ public class DOMBuilder {
                             .addAttribute("class", "propTypeCol")
                             .appendNode(
                                 new DOMNode("a", property.getName())
-                                    .addAttribute("href", "#"+property.getName())
+                                    .addAttribute("href", "#"+property.getAnchor())
                             )
                     )
                     .appendNode(
-                        new DOMNode("td", property.getDescription())
+                        new DOMNode("td", property.getDescription()).markRaw()
                             .addAttribute("width", "100%")
                     )
             );
@@ -246,7 +298,7 @@ public class DOMBuilder {
                         new DOMNode("th", item.first)
                     )
                     .appendNode(
-                        new DOMNode("td", item.second)
+                        new DOMNode("td", item.second).markRaw()
                     )
             );
         }
@@ -258,13 +310,15 @@ public class DOMBuilder {
     /**
      * Generates the HTML for the footer.
      */
-    static public String buildFooterHTML() {
+    public String buildFooterHTML() {
         if (footerHTML == null) {
             Date now = Calendar.getInstance().getTime();
 
             DOMNode a = new DOMNode("a", "MangoDocs").addAttribute("href", "https://github.com/davidyorr/MangoDocs");
-            DOMNode span = new DOMNode("span", "Generated by "+a.toString()+" on " +
-                    new SimpleDateFormat("yyyy MMM dd HH:mm z").format(now));
+            DOMNode span = new DOMNode("span", "Generated by ")
+                    .appendNode(a)
+                    .appendNode(new DOMNode("span", " on " +
+                        new SimpleDateFormat("yyyy MMM dd HH:mm z").format(now)));
 
             footerHTML = span.toString();
         }
@@ -275,17 +329,15 @@ public class DOMBuilder {
     /**
      * Generates the HTML for the sidebar.
      */
-    static public String buildSidebarHTML() {
+    public String buildSidebarHTML() {
         if (sidebarHTML == null) {
             StringBuilder sb = new StringBuilder();
-            Documentation jsdoc = Documentation.INSTANCE;
 
             Set<Entry> entries = jsdoc.getEntries(Annotation.CLASS);
             Set<Entry> nestedNamespaces;
             String entryName;
             for (Entry entry : entries) {
-                DOMNode div = partialBuilder.buildSidebarEntry(entry);
-                sb.append(div.toString());
+                partialBuilder.buildSidebarEntry(entry).appendTo(sb);
             }
 
             sidebarHTML = sb.toString();
@@ -297,40 +349,37 @@ public class DOMBuilder {
     // -------------------------------------------------------------------------
 
     /**
-     * Generates content for the index file.
+     * Writes the content of the index file.
      */
-    static private String buildIndexContentHTML() {
+    private void writeIndexContentHTML(Appendable out) throws IOException {
         // header
-        DOMNode contentHeader = partialBuilder.buildContentHeader("Class Index");
-        StringBuilder sb = new StringBuilder(contentHeader.toString());
+        partialBuilder.buildContentHeader("Class Index").writeTo(out);
 
         // entries
         String entryName;
-        Documentation jsdoc = Documentation.INSTANCE;
         Set<Entry> entries = jsdoc.getEntries(Annotation.CLASS);
 
         for (Entry entry : entries) {
             entryName = entry.getName();
-            sb.append((
-                new DOMNode("div")
+            new DOMNode("div")
                     .addAttribute("class", "itemContainer")
                     .appendNode(
-                        new DOMNode("span", (new DOMNode("a", entryName)
-                                                    .addAttribute("href", entryName+".html")).toString())
+                        new DOMNode("span")
                             .addAttribute("class", "entryName")
+                            .appendNode(
+                                new DOMNode("a", entryName)
+                                    .addAttribute("href", entryName+".html")
+                            )
                     )
                     .appendNode(
-                        new DOMNode("span", entry.getDescription())
+                        new DOMNode("span", entry.getDescription()).markRaw()
                             .addAttribute("class", "entryDescription")
                     )
-            ).toString());
+                    .writeTo(out);
         }
         // extra container for border
-        sb.append(
-            (new DOMNode("div")
-                        .addAttribute("class", "itemContainer")).toString()
-        );
-
-        return sb.toString();
+        new DOMNode("div")
+                    .addAttribute("class", "itemContainer")
+                    .writeTo(out);
     }
 }
\ No newline at end of file
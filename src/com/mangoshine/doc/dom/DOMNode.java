@@ -1,9 +1,8 @@
 package com.mangoshine.doc.dom;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 
 /**
  * Represents an HTML DOM element.
@@ -15,13 +14,34 @@ import java.util.Map;
  * Example : new DOMNode("div")
  *                  .addAttribute("id", "myDiv")
  *                  .appendNode(otherNode);
+ *
+ * A node is written out with writeTo, which streams the tags, text and
+ * children straight into a single Appendable, such as the Writer of the
+ * page, rather than building a String for each node along the way.
+ *
+ * Pages are made of thousands of nodes, most of them with one or two
+ * attributes and few or no children, so a node is kept small. The
+ * attributes are a flat array of name and value pairs in the order
+ * they were added, and neither array is allocated until it is needed.
+ * Tag names are the String literals of the builders, which are shared.
+ *
+ * Text and attribute values are escaped as they are written. Text that
+ * is already HTML, such as a description with its links rendered, is
+ * marked raw and written as it is.
+ *
+ * Example : new DOMNode("div", entry.getDescription()).markRaw();
  */
 public class DOMNode {
-    protected Map<String, String> attributes;
+    /* Names and values, alternating, null until the first attribute */
+    protected String[] attributes;
+    protected int attributeCount;
     protected String tagName;
     protected String text;
-    protected String node;
-    protected List<DOMNode> children;
+    /* true if the text is HTML, which is written without escaping */
+    protected boolean raw;
+    /* null until the first child */
+    protected DOMNode[] children;
+    protected int childCount;
 
     public DOMNode(String tagName) {
         this(tagName, "");
@@ -30,21 +50,40 @@ public class DOMNode {
     public DOMNode(String tagName, String text) {
         this.tagName = tagName;
         this.text = text;
-        this.attributes = new HashMap<>();
-        this.children = new ArrayList<>();
-        this.node = createNode(tagName);
     }
 
+    /**
+     * Adds the attribute, replacing the value of one with the same name.
+     * Empty names and values are ignored.
+     */
     public DOMNode addAttribute(String name, String value) {
         if (name.length() > 0 && value.length() > 0) {
-            attributes.put(name, value);
+            for (int i = 0; i < attributeCount; i++) {
+                if (attributes[2*i].equals(name)) {
+                    attributes[2*i+1] = value;
+                    return this;
+                }
+            }
+            if (attributes == null) {
+                attributes = new String[4];
+            } else if (attributes.length == 2*attributeCount) {
+                attributes = Arrays.copyOf(attributes, attributes.length * 2);
+            }
+            attributes[2*attributeCount] = name;
+            attributes[2*attributeCount+1] = value;
+            attributeCount++;
         }
         return this;
     }
 
     public DOMNode appendNode(DOMNode node) {
         if (node != null) {
-            this.children.add(node);
+            if (children == null) {
+                children = new DOMNode[4];
+            } else if (children.length == childCount) {
+                children = Arrays.copyOf(children, childCount * 2);
+            }
+            children[childCount++] = node;
         }
         return this;
     }
@@ -63,6 +102,15 @@ public class DOMNode {
         return this;
     }
 
+    /**
+     * Marks the text of the node as HTML, so it is written
+     * without escaping. Only use it for trusted content.
+     */
+    public DOMNode markRaw() {
+        this.raw = true;
+        return this;
+    }
+
     /**
      * Returns the tag name of the node.
      * i.e. the element type
@@ -75,37 +123,140 @@ public class DOMNode {
         return this.text;
     }
 
-    private String createNodeString(DOMNode node) {
-        StringBuilder sb = new StringBuilder();
-        String tagName = node.getTagName();
-        sb.append(node.openingTag(tagName)).append(node.getText());
-
-        List<DOMNode> children = node.children;
-        for (DOMNode child : children) {
-            sb.append(createNodeString(child));
+    /**
+     * Writes the DOM element and all of its children to the Appendable.
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append('<').append(tagName);
+        for (int i = 0; i < attributeCount; i++) {
+            out.append(' ').append(attributes[2*i]).append("=\"");
+            escape(attributes[2*i+1], true, out);
+            out.append('"');
+        }
+        out.append('>');
+        if (raw) {
+            out.append(text);
+        } else {
+            escape(text, false, out);
         }
 
-        sb.append(node.closingTag(tagName));
+        for (int i = 0; i < childCount; i++) {
+            children[i].writeTo(out);
+        }
 
-        return sb.toString();
+        out.append("</").append(tagName).append('>');
     }
 
-    private String createNode(String name) {
-        return openingTag(name)+closingTag(name);
+    /**
+     * Appends the DOM element and all of its children to the StringBuilder.
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        try {
+            writeTo(sb);
+        } catch (IOException e) {
+            // a StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return sb;
     }
 
     public String openingTag(String name) {
         StringBuilder sb = new StringBuilder("<").append(name);
 
-        for (Map.Entry<String, String> attr : attributes.entrySet()) {
-            sb.append(" ").append(attr.getKey()).append(
-                    "=\"").append(attr.getValue()).append("\"");
+        try {
+            for (int i = 0; i < attributeCount; i++) {
+                sb.append(" ").append(attributes[2*i]).append("=\"");
+                escape(attributes[2*i+1], true, sb);
+                sb.append("\"");
+            }
+        } catch (IOException e) {
+            // a StringBuilder never throws
+            throw new UncheckedIOException(e);
         }
         sb.append(">");
 
         return sb.toString();
     }
 
+    /**
+     * Returns the text with &, < and > replaced by their entities,
+     * or the text itself if there is nothing to replace. The text is
+     * scanned once, the StringBuilder is only made at the first entity.
+     */
+    public static String escape(String text) {
+        StringBuilder sb = null;
+        int start = 0;
+        String entity;
+        for (int i = 0; i < text.length(); i++) {
+            if ((entity = entity(text.charAt(i), false)) != null) {
+                if (sb == null) {
+                    sb = new StringBuilder(text.length() + 16);
+                }
+                sb.append(text, start, i).append(entity);
+                start = i+1;
+            }
+        }
+        if (sb == null) {
+            return text;
+        }
+        return sb.append(text, start, text.length()).toString();
+    }
+
+    /**
+     * Appends the text to the StringBuilder with &, < and >
+     * replaced by their entities.
+     */
+    public static StringBuilder escape(String text, StringBuilder sb) {
+        return escape(text, 0, text.length(), sb);
+    }
+
+    /**
+     * Appends the part of the text from start to end to the
+     * StringBuilder with &, < and > replaced by their entities.
+     */
+    public static StringBuilder escape(String text, int start, int end, StringBuilder sb) {
+        try {
+            escape(text, start, end, false, sb);
+        } catch (IOException e) {
+            // a StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+        return sb;
+    }
+
+    private static void escape(String text, boolean attribute, Appendable out) throws IOException {
+        escape(text, 0, text.length(), attribute, out);
+    }
+
+    /**
+     * Writes the part of the text from start to end with &, < and >,
+     * and " in attribute values, replaced by their entities. The text
+     * is scanned once, and each run between two entities is appended
+     * in one piece.
+     */
+    private static void escape(String text, int start, int end, boolean attribute, Appendable out)
+            throws IOException {
+        String entity;
+        for (int i = start; i < end; i++) {
+            if ((entity = entity(text.charAt(i), attribute)) != null) {
+                out.append(text, start, i).append(entity);
+                start = i+1;
+            }
+        }
+        out.append(text, start, end);
+    }
+
+    /* The entity the char is replaced by, or null if it is written as it is */
+    private static String entity(char c, boolean attribute) {
+        switch (c) {
+            case '&':   return "&amp;";
+            case '<':   return "&lt;";
+            case '>':   return "&gt;";
+            case '"':   return attribute ? "&quot;" : null;
+            default:    return null;
+        }
+    }
+
     public String closingTag(String name) {
         return "</"+name+">";
     }
@@ -115,7 +266,17 @@ public class DOMNode {
      * its children as a string.
      */
     public String toString() {
-        return createNodeString(this);
+        return appendTo(new StringBuilder()).toString();
+    }
+
+    /**
+     * Writes the given DOMNode to the Appendable,
+     * or nothing if the node is null.
+     */
+    public static void writeTo(DOMNode node, Appendable out) throws IOException {
+        if (node != null) {
+            node.writeTo(out);
+        }
     }
 
     /**
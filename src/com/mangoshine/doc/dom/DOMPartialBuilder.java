@@ -48,7 +48,7 @@ public enum DOMPartialBuilder {
             return null;
         }
 
-        return new DOMNode("div", text).addAttribute("class", "description");
+        return new DOMNode("div", text).markRaw().addAttribute("class", "description");
     }
 
     /**
@@ -61,7 +61,8 @@ public enum DOMPartialBuilder {
         return new DOMNode("span").appendText(
                                         (new DOMNode("a", text)
                                             .addAttribute("href", href)).toString())
-                                  .appendText(postText);
+                                  .appendText(DOMNode.escape(postText))
+                                  .markRaw();
     }
 
     static DOMNode buildSidebarEntry(Entry entry) {
@@ -128,14 +129,14 @@ public enum DOMPartialBuilder {
             = new DOMNode("tbody")
                     // returns [left side]
                     .appendNode(
-                        new DOMNode("th", "<strong>returns</strong>"))
+                        new DOMNode("th", "<strong>returns</strong>").markRaw())
                     // type and description [right side]
                     .appendNode(
                         new DOMNode("tr")
                                 .appendNode(
                                     new DOMNode("td", method.getType()))
                                .appendNode(
-                                    new DOMNode("td", method.getDescription())));
+                                    new DOMNode("td", method.getDescription()).markRaw()));
 
         table.appendNode(tbody);
         return table;
@@ -146,17 +147,17 @@ public enum DOMPartialBuilder {
      * @param method - the Entry to build a signature for
      */
     static DOMNode buildMethodSignature(Entry method) {
-        StringBuilder sb = new StringBuilder(
-                "<strong>").append(
-                method.getName()).append(
-                "</strong> ( ");
+        StringBuilder sb = new StringBuilder("<strong>");
+        DOMNode.escape(method.getName(), sb).append("</strong> ( ");
 
         List<Parameter> params = method.getParameters();
         Parameter param;
         int size = params.size();
         for (int i = 0; i < size; i++) {
             param = params.get(i);
-            sb.append("<em>").append(param.getArgType()).append("</em> ").append(param.getName());
+            sb.append("<em>");
+            DOMNode.escape(param.getArgType(), sb).append("</em> ");
+            DOMNode.escape(param.getName(), sb);
             if (i != size-1) {
                 sb.append(", ");
             }
@@ -164,7 +165,7 @@ public enum DOMPartialBuilder {
 
         sb.append(size == 0 ? ")" : " )");
 
-        return new DOMNode("span", sb.toString())
+        return new DOMNode("span", sb.toString()).markRaw()
                         .addAttribute("class", "signature");
     }
 
@@ -233,12 +234,12 @@ public enum DOMPartialBuilder {
                                     .addAttribute("width", "100%")
                                     // name
                                     .appendNode(buildLink(entry.getName(),
-                                                    "#"+entry.getName(),
+                                                    "#"+entry.getAnchor(),
                                                     buildSignatureParamsString(entry))
                                     )
                                     // description
                                         .appendNode(
-                                            new DOMNode("div", entry.getDescription())
+                                            new DOMNode("div", entry.getDescription()).markRaw()
                                                             .addAttribute("class", "descrDiv")
                                         )
                         )
@@ -279,12 +280,12 @@ public enum DOMPartialBuilder {
                                         .addAttribute("href",
                                                 topLevelLinks
                                                 ? entry.getName()+".html"
-                                                : "#"+entry.getName())
+                                                : "#"+entry.getAnchor())
                                 )
                         )
                         // description [col C]
                         .appendNode(
-                            new DOMNode("td", entry.getDescription())
+                            new DOMNode("td", entry.getDescription()).markRaw()
                                     .addAttribute("width", "100%")
                         )
             );
@@ -348,7 +349,7 @@ public enum DOMPartialBuilder {
                         new DOMNode("span", "Default")
                             .addAttribute("class", "defaultTitle"))
                     .appendNode(
-                        new DOMNode("div", property.getDefault())
+                        new DOMNode("div", property.getDefault()).markRaw()
                             .addAttribute("class", "defaultDescr"));
 
         return container;
@@ -369,7 +370,7 @@ public enum DOMPartialBuilder {
             item = tableList.get(i);
             tbody.appendNode(new DOMNode("tr")
                                     .appendNode(new DOMNode("th", item.first))
-                                    .appendNode(new DOMNode("td", item.second)));
+                                    .appendNode(new DOMNode("td", item.second).markRaw()));
         }
         table.appendNode(tbody);
 
@@ -413,9 +414,10 @@ public enum DOMPartialBuilder {
         if (annotationType == Annotation.STATICPROPERTY ||
                 annotationType == Annotation.INSTANCEPROPERTY) {
             return new DOMNode("h4", (isStatic ? "static " : "") +
-                                            entry.getType() + " " +
-                                            "<strong>"+entry.getName()+"</strong>")
-                            .addAttribute("id", entry.getName());
+                                            DOMNode.escape(entry.getType()) + " " +
+                                            "<strong>"+DOMNode.escape(entry.getName())+"</strong>")
+                            .markRaw()
+                            .addAttribute("id", entry.getAnchor());
         }
 
         StringBuilder sb = new StringBuilder(isStatic ? "static " : "");
@@ -429,18 +431,15 @@ public enum DOMPartialBuilder {
             returnValueType = rv.getType();
         }
 
-        sb.append(returnValueType)
-          .append(" <strong>")
-          .append(entry.getName())
-          .append("</strong> ( ");
+        DOMNode.escape(returnValueType, sb).append(" <strong>");
+        DOMNode.escape(entry.getName(), sb).append("</strong> ( ");
         List<Parameter> parameters = entry.getParameters();
         int size = parameters.size();
         Parameter parameter;
         for (int i = 0; i < size; i++) {
             parameter = parameters.get(i);
-            sb.append(parameter.getArgType())
-              .append(" ")
-              .append(parameter.getName());
+            DOMNode.escape(parameter.getArgType(), sb).append(" ");
+            DOMNode.escape(parameter.getName(), sb);
             if (i != size-1) {
                 sb.append(", ");
             } else {
@@ -449,7 +448,7 @@ public enum DOMPartialBuilder {
         }
         sb.append(")");
 
-        return new DOMNode("h4", sb.toString());
+        return new DOMNode("h4", sb.toString()).markRaw();
     }
 
     /**
@@ -479,7 +478,7 @@ public enum DOMPartialBuilder {
             = new DOMNode("div")
                     .addAttribute("class", "memberDivBody")
                     .appendNode(
-                        new DOMNode("div", entry.getDescription())
+                        new DOMNode("div", entry.getDescription()).markRaw()
                             .addAttribute("class", "memberDescr")
                     );
         String _default = entry.getDefault();
@@ -512,14 +511,14 @@ public enum DOMPartialBuilder {
         for (Entry method : methods) {
             entries.add(new DOMNode("div")
                                 .addAttribute("class", "memberDiv")
-                                .addAttribute("id", method.getName())
+                                .addAttribute("id", method.getAnchor())
                                 .appendNode(buildEntrySignature(method))
                                 .appendNode(
                                     new DOMNode("div")
                                         .addAttribute("class", "memberDivBody")
                                         .appendNode(
                                             method.getDescription().length() > 0
-                                            ? new DOMNode("span", method.getDescription())
+                                            ? new DOMNode("span", method.getDescription()).markRaw()
                                             : null
                                         )
                                         .appendNode(buildMethodParamsTable(method))
@@ -1,11 +1,24 @@
 package com.mangoshine.doc.logging;
 
-import com.mangoshine.doc.Config;
-
+/**
+ * Prints progress messages, unless the build is silent.
+ * Errors are always printed.
+ */
 public class Logger {
-    static public void log(String msg) {
-        if (!Config.INSTANCE.isSilent()) {
+    private final boolean silent;
+
+    public Logger(boolean silent) {
+        this.silent = silent;
+    }
+
+    public void log(String msg) {
+        if (!silent) {
             System.out.println(msg);
         }
     }
+
+    public void error(String msg) {
+        System.err.println("\nError : \n");
+        System.err.println(msg);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,338 @@
+package com.mangoshine.doc.parsing;
+
+import java.io.InterruptedIOException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.mangoshine.doc.annotation.AnnotationException;
+
+/**
+ * Scans a source file directly from its bytes.
+ *
+ * Large files are memory mapped rather than read. Lines, comment markers
+ * and instance property braces are all found on the raw bytes, and a
+ * String is only created for comment lines and lines with a trailing
+ * instance property. Plain code lines, which are nearly all of a file,
+ * are never decoded at all.
+ *
+ * Large buffers can be split into chunks at line boundaries and the
+ * chunks scanned at the same time. Scanning a line never depends on the
+ * lines before it, so the chunks are simply joined back together in
+ * order, and a comment block that crosses a chunk boundary is put back
+ * together when the joined file is replayed.
+ *
+ * The result is the same ScannedFile that scanning the file line
+ * by line produces.
+ */
+public class ByteScanner {
+    /* Files smaller than this are read rather than mapped,
+       since mapping a small file costs more than it saves */
+    private static final int MAP_THRESHOLD = 64 * 1024;
+
+    /* Buffers are split into chunks of about this size */
+    public static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final ByteBuffer buffer;
+    private final String filename;
+    private final Charset charset;
+
+    /* Reused for copying lines out of buffers that have no array */
+    private byte[] lineBytes = new byte[256];
+
+    public ByteScanner(ByteBuffer buffer, String filename, Charset charset) {
+        this.buffer = buffer;
+        this.filename = filename;
+        this.charset = charset;
+    }
+
+    /**
+     * Scans the file at the given path.
+     */
+    public static ScannedFile scan(Path path, Charset charset)
+            throws IOException,
+                   AnnotationException {
+        return scan(path, charset, null);
+    }
+
+    /**
+     * Scans the file at the given path, in chunks on the
+     * executor if it is large enough and there is one.
+     */
+    public static ScannedFile scan(Path path, Charset charset, ExecutorService executor)
+            throws IOException,
+                   AnnotationException {
+        return scan(read(path), path.toString(), charset, executor);
+    }
+
+    /**
+     * Returns the bytes of the file at the given path,
+     * memory mapped if the file is large.
+     */
+    public static ByteBuffer read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer;
+            if (size < MAP_THRESHOLD) {
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                }
+                buffer.flip();
+            } else {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            return buffer;
+        }
+    }
+
+    /**
+     * Scans the buffer, in chunks on the executor
+     * if it is large enough and there is one.
+     */
+    public static ScannedFile scan(ByteBuffer buffer, String filename, Charset charset,
+                                   ExecutorService executor)
+            throws InterruptedIOException,
+                   AnnotationException {
+        if (executor == null || buffer.remaining() < CHUNK_SIZE * 2) {
+            return new ByteScanner(buffer, filename, charset).scan();
+        }
+
+        List<Future<ScannedFile>> chunks = new ArrayList<>();
+        int limit = buffer.limit();
+        int start = buffer.position();
+        int end;
+        while (start < limit) {
+            end = chunkEnd(buffer, start + CHUNK_SIZE, limit);
+            final int from = start;
+            final int to = end;
+            chunks.add(executor.submit(() -> new ByteScanner(buffer.duplicate(), filename, charset).scan(from, to)));
+            start = end;
+        }
+
+        ScannedFile scanned = new ScannedFile(filename);
+        int lineOffset = 0;
+        try {
+            for (Future<ScannedFile> chunk : chunks) {
+                ScannedFile part = chunk.get();
+                scanned.append(part, lineOffset);
+                lineOffset += part.getLineCount();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while scanning " + filename);
+        } catch (ExecutionException e) {
+            for (Future<ScannedFile> chunk : chunks) {
+                chunk.cancel(true);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof AnnotationException) {
+                // scan again in one piece, so the error has the right line number
+                return new ByteScanner(buffer, filename, charset).scan();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        scanned.setLineCount(lineOffset);
+
+        return scanned;
+    }
+
+    /**
+     * Returns the position just after the first \n at or after pos,
+     * so that a chunk never ends part way through a line.
+     */
+    private static int chunkEnd(ByteBuffer buffer, int pos, int limit) {
+        if (pos >= limit) {
+            return limit;
+        }
+        while (pos < limit && buffer.get(pos) != '\n') {
+            pos++;
+        }
+        return pos < limit ? pos+1 : limit;
+    }
+
+    /**
+     * Scans the whole buffer.
+     */
+    public ScannedFile scan() throws AnnotationException {
+        return scan(buffer.position(), buffer.limit());
+    }
+
+    /**
+     * Scans the bytes from start to limit, where start is the start of a line.
+     * Lines end with \n, \r or \r\n, the same as BufferedReader.readLine(),
+     * and are numbered from 1.
+     */
+    public ScannedFile scan(int start, int limit) throws AnnotationException {
+        ScannedFile scanned = new ScannedFile(filename);
+        int pos = start;
+        int lineNum = 0;
+        int end;
+        byte b;
+
+        while (pos < limit) {
+            lineNum++;
+            end = pos;
+            while (end < limit && (b = buffer.get(end)) != '\n' && b != '\r') {
+                end++;
+            }
+            scanLine(scanned, pos, end, lineNum);
+
+            pos = end+1;
+            if (end < limit && buffer.get(end) == '\r' && pos < limit && buffer.get(pos) == '\n') {
+                pos++;
+            }
+        }
+        scanned.setLineCount(lineNum);
+
+        return scanned;
+    }
+
+    /**
+     * Scans the line between start (inclusive) and end (exclusive).
+     */
+    private void scanLine(ScannedFile scanned, int start, int end, int lineNum)
+            throws AnnotationException {
+        // trim, the same as String.trim()
+        while (start < end && (buffer.get(start) & 0xff) <= ' ') {
+            start++;
+        }
+        while (end > start && (buffer.get(end-1) & 0xff) <= ' ') {
+            end--;
+        }
+
+        boolean isComment = end-start >= 2 && buffer.get(start) == '/' && buffer.get(start+1) == '/';
+        if (isComment && isUseful(start, end)) {
+            String line = Line.trim(decode(start, end));
+            scanned.addComment(lineNum, line, Line.checkForAnnotation(line, lineNum, filename));
+        }
+        else {
+            // instance properties do not require an annotation
+            if (isInstanceProperty(start, end)) {
+                scanned.addInstanceProperty(lineNum, Line.trim(decode(start, end)));
+            }
+            // if the line has code we reset the context
+            if (!isComment) {
+                scanned.addCode(lineNum);
+            }
+        }
+    }
+
+    /**
+     * Same as Line.isUseful(), only lines with non ASCII
+     * characters are decoded to be checked.
+     */
+    private boolean isUseful(int start, int end) {
+        byte b;
+        for (int i = start; i < end; i++) {
+            b = buffer.get(i);
+            if ((b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')) {
+                return true;
+            }
+            if (b < 0) {
+                return Line.isUseful(decode(start, end));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same as Line.isInstanceProperty().
+     * The markers are all ASCII, so they can be searched for on the bytes.
+     */
+    private boolean isInstanceProperty(int start, int end) {
+        int commentPos = -1;
+        for (int i = start; i < end-1; i++) {
+            if (buffer.get(i) == '/' && buffer.get(i+1) == '/') {
+                commentPos = i;
+                break;
+            }
+        }
+        if (commentPos < 0) {
+            return false;
+        }
+        int bracePosA = indexOf('{', commentPos, end);
+        int bracePosB = indexOf('}', commentPos, end);
+        int colonPos = indexOf(':', commentPos, end);
+
+        return bracePosA > -1 && bracePosB > -1 && colonPos > -1 &&
+                bracePosA < bracePosB && bracePosB < colonPos;
+    }
+
+    private int indexOf(char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes the bytes between start and end into a String.
+     * A line of only ASCII bytes is the same in every supported charset,
+     * so it is copied straight into the String without going through
+     * the charset's decoder. Only lines with a high byte are decoded.
+     */
+    private String decode(int start, int end) {
+        int length = end-start;
+        byte[] bytes;
+        int offset;
+        boolean ascii = true;
+
+        if (buffer.hasArray()) {
+            bytes = buffer.array();
+            offset = buffer.arrayOffset()+start;
+            for (int i = offset; i < offset+length; i++) {
+                if (bytes[i] < 0) {
+                    ascii = false;
+                    break;
+                }
+            }
+        } else {
+            if (lineBytes.length < length) {
+                lineBytes = new byte[Math.max(length, lineBytes.length*2)];
+            }
+            bytes = lineBytes;
+            offset = 0;
+            byte b;
+            for (int i = 0; i < length; i++) {
+                b = buffer.get(start+i);
+                bytes[i] = b;
+                ascii &= b >= 0;
+            }
+        }
+
+        return new String(bytes, offset, length, ascii ? StandardCharsets.ISO_8859_1 : charset);
+    }
+
+    /**
+     * Returns true if the charset is UTF-8, or a single byte charset that
+     * encodes ASCII the same way ASCII does, which the scanner relies on
+     * to find the markers on the raw bytes. Other charsets, like UTF-16,
+     * or Shift_JIS and GBK whose second bytes can look like ASCII, have
+     * to be read line by line.
+     */
+    public static boolean supports(Charset charset) {
+        if (charset.equals(StandardCharsets.UTF_8)) {
+            return true;
+        }
+        if (!charset.canEncode() || charset.newEncoder().maxBytesPerChar() != 1) {
+            return false;
+        }
+        String ascii = "\t\n\r /{}:@abcXYZ019";
+        return Arrays.equals(ascii.getBytes(charset), ascii.getBytes(StandardCharsets.US_ASCII));
+    }
+}
\ No newline at end of file
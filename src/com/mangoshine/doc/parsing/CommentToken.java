@@ -0,0 +1,211 @@
+package com.mangoshine.doc.parsing;
+
+import com.mangoshine.doc.annotation.Annotation;
+
+/**
+ * A comment line broken into its parts in a single pass.
+ *
+ * ex: @param {int} width : the width {@default 50}
+ *
+ * The positions of the parts are found once when the line is tokenized,
+ * and a part is only turned into a String when a handler asks for it.
+ * A part that is missing from the line is an empty String.
+ * One token is reused for every line of a file. Names and types
+ * are taken from the InternPool, so repeated ones are shared.
+ */
+public class CommentToken {
+    private static final String DEFAULT = "{@default";
+
+    private final InternPool pool;
+
+    private String line;
+    private int length;
+
+    /* Positions in the line, -1 if not found */
+    private int space;
+    private int openBrace;
+    private int closeBrace;
+    private int lastCloseBrace;
+    private int colon;
+    private int defaultStart;
+
+    /* The annotation declared on the line, recognized when it was scanned */
+    private Annotation annotation;
+
+    public CommentToken(InternPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Tokenizes the line, which has already had its // prefix trimmed,
+     * with the annotation it declares or NONE.
+     */
+    public CommentToken tokenize(String line, Annotation annotation) {
+        this.line = line;
+        this.length = line.length();
+        this.annotation = annotation;
+        space = openBrace = closeBrace = lastCloseBrace = colon = defaultStart = -1;
+
+        char c;
+        for (int i = 0; i < length; i++) {
+            c = line.charAt(i);
+            switch (c) {
+                case ' ':
+                    if (space < 0) space = i;
+                    break;
+                case '{':
+                    if (openBrace < 0) openBrace = i;
+                    // a default is only part of the description
+                    if (defaultStart < 0 && colon > -1 && line.startsWith(DEFAULT, i)) {
+                        defaultStart = i;
+                    }
+                    break;
+                case '}':
+                    if (closeBrace < 0) closeBrace = i;
+                    lastCloseBrace = i;
+                    break;
+                case ':':
+                    if (colon < 0) colon = i;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return this;
+    }
+
+    public String getLine() {
+        return line;
+    }
+
+    /**
+     * Returns true if the line starts with an annotation declaration.
+     */
+    public boolean isAnnotation() {
+        return length > 0 && line.charAt(0) == '@';
+    }
+
+    /**
+     * Returns the annotation declared on the line, or NONE.
+     */
+    public Annotation getAnnotation() {
+        return annotation;
+    }
+
+    /**
+     * Returns everything after the annotation type.
+     */
+    public String getAnnotationValue() {
+        return isAnnotation() && space > -1 ? line.substring(space+1) : "";
+    }
+
+    /**
+     * Returns true if the line is an instance property, which
+     * has a type in braces followed by a name and a colon.
+     * ex: {int} width : the width
+     */
+    public boolean isStandaloneInstanceProperty() {
+        return hasType() && colon > closeBrace;
+    }
+
+    /**
+     * Returns the type between the braces.
+     */
+    public String getType() {
+        return hasType() ? pool.intern(line, openBrace+1, closeBrace) : "";
+    }
+
+    /**
+     * Returns the name between the type and the colon.
+     */
+    public String getName() {
+        int start = hasType() ? closeBrace+1 : contentStart();
+        int end = colon >= start ? colon : length;
+        start = trimStart(start, end);
+        return pool.intern(line, start, trimEnd(start, end));
+    }
+
+    /**
+     * Returns the description after the colon.
+     */
+    public String getDescription() {
+        return colon > -1 ? trimmed(colon+1, length) : "";
+    }
+
+    /**
+     * Returns the description directly after the type, for
+     * lines with no name. ex: {int} The maximum radius.
+     */
+    public String getTrailingDescription() {
+        return trimmed(hasType() ? closeBrace+1 : contentStart(), length);
+    }
+
+    /**
+     * Returns everything after the colon, untrimmed.
+     */
+    public String getReturnDescription() {
+        return colon > -1 ? line.substring(colon+1) : "";
+    }
+
+    /**
+     * Returns true if the description contains a default.
+     * ex: the width {@default 50}
+     */
+    public boolean hasDefault() {
+        return defaultStart > -1 && lastCloseBrace > defaultStart;
+    }
+
+    /**
+     * Returns the value of the default.
+     */
+    public String getDefault() {
+        int start = Math.min(defaultStart+DEFAULT.length()+1, lastCloseBrace);
+        return hasDefault() ? line.substring(start, lastCloseBrace) : "";
+    }
+
+    /**
+     * Returns the description up to the default.
+     */
+    public String getDescriptionWithoutDefault() {
+        if (!hasDefault()) {
+            return getDescription();
+        }
+        int start = trimStart(colon+1, length);
+        return line.substring(start, Math.max(start, defaultStart-1));
+    }
+
+    private boolean hasType() {
+        return openBrace > -1 && closeBrace > openBrace;
+    }
+
+    /* Where the content starts, which is after the annotation type if there is one */
+    private int contentStart() {
+        if (!isAnnotation()) {
+            return 0;
+        }
+        return space > -1 ? space+1 : length;
+    }
+
+    private int trimStart(int start, int end) {
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Same as substring(start, end).trim(), with a single substring.
+     */
+    private String trimmed(int start, int end) {
+        start = trimStart(start, end);
+        return line.substring(start, trimEnd(start, end));
+    }
+
+    private int trimEnd(int start, int end) {
+        while (end > start && line.charAt(end-1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+}
\ No newline at end of file
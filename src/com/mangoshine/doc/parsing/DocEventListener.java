@@ -0,0 +1,73 @@
+package com.mangoshine.doc.parsing;
+
+import com.mangoshine.doc.annotation.Annotation;
+
+/**
+ * Receives the documentation as a stream of events while the Parser
+ * replays the scanned files, so that it can be consumed one piece at a
+ * time without building the whole Documentation.
+ *
+ * Events arrive from a single thread, file by file in input order.
+ * Members are identified by their key (parent#name, or parent.name for
+ * static members), as generated by EntrySet.generateKey(), and a
+ * constructor by the name of its class.
+ * Every method does nothing by default, so a listener only needs to
+ * implement the events it cares about.
+ */
+public interface DocEventListener {
+
+    /**
+     * Called before the first file of a parse.
+     */
+    default void onStart() { }
+
+    /**
+     * Called before the events of each file.
+     */
+    default void onFile(String filename) { }
+
+    /**
+     * Called after the last file of a parse.
+     */
+    default void onEnd() { }
+
+    default void onClass(String name) { }
+
+    default void onNamespace(String name) { }
+
+    /**
+     * A static method, instance method or event of the parent.
+     */
+    default void onMethod(Annotation type, String parentName, String name) { }
+
+    /**
+     * A static or instance property of the parent. The value type, default
+     * and description are only given for instance properties, which are
+     * declared on a single line. The default is null if there is none.
+     */
+    default void onProperty(Annotation type, String parentName, String name,
+                            String valueType, String defaultValue, String description) { }
+
+    /**
+     * A parameter of the constructor or method.
+     */
+    default void onParam(Annotation ownerType, String ownerKey,
+                         String name, String argType, String description) { }
+
+    /**
+     * More description for the last parameter of the constructor or method.
+     */
+    default void onParamDescriptionChunk(Annotation ownerType, String ownerKey, String text) { }
+
+    default void onReturn(Annotation ownerType, String ownerKey, String type, String description) { }
+
+    /**
+     * The value type of a property, given on its first description line.
+     */
+    default void onType(Annotation type, String key, String valueType) { }
+
+    /**
+     * A line of the description of a class, namespace, constructor or member.
+     */
+    default void onDescriptionChunk(Annotation type, String key, String text) { }
+}
\ No newline at end of file
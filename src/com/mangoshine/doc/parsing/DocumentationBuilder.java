@@ -0,0 +1,119 @@
+package com.mangoshine.doc.parsing;
+
+import java.util.List;
+
+import com.mangoshine.doc.annotation.Annotation;
+import com.mangoshine.doc.construct.ClassEntry;
+import com.mangoshine.doc.construct.Documentation;
+import com.mangoshine.doc.construct.Entry;
+import com.mangoshine.doc.construct.MethodEntry;
+import com.mangoshine.doc.construct.NamespaceEntry;
+import com.mangoshine.doc.construct.Parameter;
+import com.mangoshine.doc.construct.PropertyEntry;
+import com.mangoshine.doc.construct.ReturnValue;
+
+/**
+ * The listener that builds the Documentation from the parse events.
+ */
+public class DocumentationBuilder implements DocEventListener {
+    private final Documentation doc;
+
+    public DocumentationBuilder(Documentation doc) {
+        this.doc = doc;
+    }
+
+    @Override
+    public void onStart() {
+        doc.clear();
+    }
+
+    @Override
+    public void onEnd() {
+        doc.resolveLinks();
+    }
+
+    @Override
+    public void onClass(String name) {
+        doc.addEntry(new ClassEntry(name));
+    }
+
+    @Override
+    public void onNamespace(String name) {
+        doc.addEntry(new NamespaceEntry(name));
+
+        // check if it is a nested namespace
+        int period = name.lastIndexOf('.');
+        if (period > -1) {
+            Entry parentEntry = doc.getEntry(name.substring(0, period));
+            if (parentEntry != null) {
+                parentEntry.addNestedNamespace(doc.getEntry(name));
+            }
+        }
+    }
+
+    @Override
+    public void onMethod(Annotation type, String parentName, String name) {
+        Entry parentEntry = doc.getEntry(parentName);
+        MethodEntry method = new MethodEntry(type, name);
+        parentEntry.addMethod(method);
+        doc.addEntry(parentEntry.getName(), method);
+    }
+
+    @Override
+    public void onProperty(Annotation type, String parentName, String name,
+                           String valueType, String defaultValue, String description) {
+        Entry parentEntry = doc.getEntry(parentName);
+        Entry property = new PropertyEntry(type, name);
+
+        if (type == Annotation.INSTANCEPROPERTY) {
+            // instance properties are only reachable through their parent
+            property.setType(valueType);
+            if (defaultValue != null) {
+                property.setDefault(defaultValue);
+            }
+            property.appendToDescription(description);
+            parentEntry.addProperty(property);
+        } else {
+            parentEntry.addProperty(property);
+            doc.addEntry(parentEntry.getName(), property);
+        }
+    }
+
+    @Override
+    public void onParam(Annotation ownerType, String ownerKey,
+                        String name, String argType, String description) {
+        getEntry(ownerType, ownerKey).addParameter(new Parameter(name, argType, description));
+    }
+
+    @Override
+    public void onParamDescriptionChunk(Annotation ownerType, String ownerKey, String text) {
+        List<Parameter> parameters = getEntry(ownerType, ownerKey).getParameters();
+        if (parameters != null && parameters.size() > 0) {
+            parameters.get(parameters.size()-1).appendToDescription(text);
+        }
+    }
+
+    @Override
+    public void onReturn(Annotation ownerType, String ownerKey, String type, String description) {
+        getEntry(ownerType, ownerKey).setReturnValue(new ReturnValue(type, description));
+    }
+
+    @Override
+    public void onType(Annotation type, String key, String valueType) {
+        getEntry(type, key).setType(valueType);
+    }
+
+    @Override
+    public void onDescriptionChunk(Annotation type, String key, String text) {
+        getEntry(type, key).appendToDescription(text);
+    }
+
+    /**
+     * Returns the entry for the event, which for a
+     * constructor is the constructor of the class.
+     */
+    private Entry getEntry(Annotation type, String key) {
+        Entry entry = doc.getEntry(key);
+        return type == Annotation.CONSTRUCTOR ? entry.getConstructor() : entry;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.mangoshine.doc.parsing;
+
+/**
+ * A pool of the names and types found while parsing, so that a name
+ * that is used over and over, like {Object} or callback, is only
+ * stored once no matter how many entries use it.
+ *
+ * A name is looked up straight from its range of the source line, and
+ * a String is only created the first time the name is seen.
+ * One pool is used for a whole parse. It is not thread safe, which is
+ * fine since files are replayed one at a time.
+ */
+public class InternPool {
+    private String[] table = new String[1024];
+    private int[] hashes = new int[1024];
+    private int size = 0;
+
+    /**
+     * Returns the pooled String with the same chars as the line from
+     * start to end, adding one if there isn't one yet.
+     */
+    public String intern(String line, int start, int end) {
+        // the same hash as String.hashCode(), so whole Strings can use their cached one
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + line.charAt(i);
+        }
+        return lookup(line, start, end, hash);
+    }
+
+    /**
+     * Returns the pooled String equal to the given one.
+     */
+    public String intern(String s) {
+        return lookup(s, 0, s.length(), s.hashCode());
+    }
+
+    private String lookup(String line, int start, int end, int hash) {
+        int length = end - start;
+        if (length == 0) {
+            return "";
+        }
+
+        int mask = table.length - 1;
+        int i = mix(hash) & mask;
+        String s;
+        while ((s = table[i]) != null) {
+            if (hashes[i] == hash && s.length() == length && line.regionMatches(start, s, 0, length)) {
+                return s;
+            }
+            i = (i + 1) & mask;
+        }
+
+        s = start == 0 && end == line.length() ? line : line.substring(start, end);
+        table[i] = s;
+        hashes[i] = hash;
+        if (++size * 2 > table.length) {
+            grow();
+        }
+        return s;
+    }
+
+    /**
+     * Returns the number of distinct Strings in the pool.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        String[] oldTable = table;
+        int[] oldHashes = hashes;
+        table = new String[oldTable.length * 2];
+        hashes = new int[oldTable.length * 2];
+
+        int mask = table.length - 1;
+        int j;
+        for (int i = 0; i < oldTable.length; i++) {
+            if (oldTable[i] != null) {
+                j = mix(oldHashes[i]) & mask;
+                while (table[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                table[j] = oldTable[i];
+                hashes[j] = oldHashes[i];
+            }
+        }
+    }
+
+    /* Spreads the bits of the hash, since the table is indexed by its low bits */
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
\ No newline at end of file
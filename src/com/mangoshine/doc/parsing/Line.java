@@ -27,44 +27,38 @@ public class Line {
     }
 
     /**
-     * Handle a line by converting links to 'a' DOM elements.
+     * Handle a line by converting links to 'a' DOM elements,
+     * and escaping the rest of the line other than the reserved tags.
      * Links are specified by surrounding carets.
      * ex: Handler for <Class>.
      */
     public static String handleLinks(String line) {
-        StringBuilder sb = new StringBuilder();
-        String linkName;
-        DOMNode linkNode;
-        int start = 0;
-        int end = 0;
-        boolean containsStart = false;
-
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-            if (c == '<') {
-                containsStart = true;
-                start = i;
-            } else if (c == '>') {
-                end = i;
-            }
+        int start = line.indexOf('<');
+        if (start < 0) {
+            return DOMNode.escape(line);
+        }
 
-            if (containsStart && end > 0) {
-                linkName = line.substring(start+1,end);
-                if (!reservedWords.contains(linkName)) {
-                    linkNode = new DOMNode("tt")
-                                        .appendNode(new DOMNode("a", linkName)
-                                            .addAttribute("href", linkName+".html"));
-                    sb.replace(start, end, linkNode.toString());
-                } else {
-                    sb.append(c);
-                }
-                containsStart = false;
-                start = 0;
-                end = 0;
+        StringBuilder sb = new StringBuilder(line.length() + 64);
+        String linkName;
+        int done = 0;
+        int end;
+        while (start > -1 && (end = line.indexOf('>', start+1)) > -1) {
+            // the link starts at the last < before its >
+            start = line.lastIndexOf('<', end);
+            DOMNode.escape(line, done, start, sb);
+            linkName = line.substring(start+1, end);
+            if (reservedWords.contains(linkName)) {
+                sb.append(line, start, end+1);
             } else {
-                sb.append(c);
+                new DOMNode("tt")
+                    .appendNode(new DOMNode("a", linkName)
+                        .addAttribute("href", linkName+".html"))
+                    .appendTo(sb);
             }
+            done = end+1;
+            start = line.indexOf('<', done);
         }
+        DOMNode.escape(line, done, line.length(), sb);
 
         return sb.toString();
     }
@@ -75,33 +69,23 @@ public class Line {
      * Checks if the line contains an annotation.
      * The line number and filename are only passed in order
      * to give that information to the exception.
-     * Returns an empty String if not.
+     * Returns NONE if not.
      */
-    static public String checkForAnnotation(String line, int lineNum, String filename)
+    static public Annotation checkForAnnotation(String line, int lineNum, String filename)
             throws AnnotationException {
-        String annotation = "";
         if (isAnnotation(line)) {
-            try {
-                annotation = line.substring(1, line.indexOf(' '));
-            } catch (StringIndexOutOfBoundsException e) {
+            int space = line.indexOf(' ');
+            if (space < 0) {
                 throw new MissingAnnotationValueException(line, lineNum, filename);
             }
-            if (!Annotation.isValid(annotation)) {
-                throw new InvalidAnnotationException(annotation, lineNum, filename);
+            Annotation annotation = Annotation.recognize(line, 1, space);
+            if (annotation == null) {
+                throw new InvalidAnnotationException(line.substring(1, space), lineNum, filename);
             }
             return annotation;
         }
 
-        return "";
-    }
-
-    /**
-     * Checks if the line contains an annotation definition for 'default'.
-     */
-    static public boolean containsDefault(String line) {
-        int posA = line.indexOf("{@default");
-        int posB = line.lastIndexOf("}");
-        return posA > -1 && posB > posA;
+        return Annotation.NONE;
     }
 
     /**
@@ -134,27 +118,26 @@ public class Line {
      */
     static public boolean isInstanceProperty(String line) {
         int commentPos = line.indexOf("//");
-        int bracePosA = line.indexOf("{", commentPos);
-        int bracePosB = line.indexOf("}", commentPos);
-        int colonPos = line.indexOf(":", commentPos);
-
-        return commentPos > -1 && bracePosA > 0 && bracePosB > 0 && colonPos > 0 &&
-                commentPos < bracePosA && bracePosA < bracePosB && bracePosB < colonPos;
-    }
+        if (commentPos < 0) {
+            return false;
+        }
 
-    /**
-     * There is probably a better way than this.
-     * I added this method because when parsing the file, we strip the '//'
-     * from the comment, then start doing the operations on it. But after we've
-     * already stripped the '//', we then have a check if it's an instance
-     * property, but that method expects there to be a '//' in the line.
-     */
-    static public boolean isStandaloneInstanceProperty(String line) {
-        int bracePosA = line.indexOf("{");
-        int bracePosB = line.indexOf("}");
-        int colonPos = line.indexOf(":");
+        // the first brace, brace and colon after the comment must come in that order
+        int bracePosA = -1;
+        int bracePosB = -1;
+        char c;
+        for (int i = commentPos+2, l = line.length(); i < l; i++) {
+            c = line.charAt(i);
+            if (c == '{') {
+                if (bracePosA < 0) bracePosA = i;
+            } else if (c == '}') {
+                if (bracePosB < 0) bracePosB = i;
+            } else if (c == ':') {
+                return bracePosA > -1 && bracePosA < bracePosB;
+            }
+        }
 
-        return bracePosA > -1 && bracePosB > bracePosA && colonPos > bracePosB;
+        return false;
     }
 
     /**
@@ -0,0 +1,105 @@
+package com.mangoshine.doc.parsing;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.mangoshine.doc.annotation.Annotation;
+import com.mangoshine.doc.construct.EntrySet;
+
+/**
+ * The parse state of a single file.
+ * Every file gets its own context, so no state is shared
+ * between files and they can be scanned concurrently.
+ */
+public class ParseContext {
+    private final String filename;
+
+    /* The current annotation type being parsed */
+    private Annotation current = Annotation.NONE;
+
+    /* The current class or method being parsed */
+    private Annotation currentClassOrMethod = null;
+
+    /* The current class or namespace being parsed.
+       This is used to determine what entry an
+       instance property belongs to */
+    private Annotation currentClassOrNamespace = null;
+
+    /* The name value of the most recent annotation of each type
+       that was parsed. For members this is the full key of the
+       entry (parent#name, or parent.name for static members),
+       so it can be looked up directly. */
+    private Map<Annotation, String> currentNames = new EnumMap<>(Annotation.class);
+
+    /* The number of the line being parsed */
+    private int lineNum = 0;
+
+    /* The names of the class and namespace pages this file touched */
+    private Set<String> pages = new HashSet<>();
+
+    public ParseContext(String filename) {
+        this.filename = filename;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public int getLineNum() {
+        return lineNum;
+    }
+
+    public void setLineNum(int lineNum) {
+        this.lineNum = lineNum;
+    }
+
+    public Annotation getCurrent() {
+        return current;
+    }
+
+    public void setCurrent(Annotation annotation) {
+        current = annotation;
+    }
+
+    public Annotation getCurrentClassOrMethod() {
+        return currentClassOrMethod;
+    }
+
+    public void setCurrentClassOrMethod(Annotation annotation) {
+        currentClassOrMethod = annotation;
+    }
+
+    public Annotation getCurrentClassOrNamespace() {
+        return currentClassOrNamespace;
+    }
+
+    public void setCurrentClassOrNamespace(Annotation annotation) {
+        currentClassOrNamespace = annotation;
+    }
+
+    public String getCurrentName(Annotation annotation) {
+        return currentNames.get(annotation);
+    }
+
+    public void setCurrentName(Annotation annotation, String value) {
+        currentNames.put(annotation, value);
+    }
+
+    public void setCurrentName(Annotation annotation, String parentName, String value) {
+        setCurrentName(annotation, EntrySet.generateKey(annotation, parentName, value));
+    }
+
+    /**
+     * Records that the file adds to the page of the
+     * class or namespace with the given name.
+     */
+    public void touch(String pageName) {
+        pages.add(pageName);
+    }
+
+    public Set<String> getPages() {
+        return pages;
+    }
+}
\ No newline at end of file
@@ -1,122 +1,378 @@
 package com.mangoshine.doc.parsing;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.IOException;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.mangoshine.doc.Config;
+import com.mangoshine.doc.DocBuild;
 import com.mangoshine.doc.annotation.Annotation;
 import com.mangoshine.doc.annotation.AnnotationException;
+import com.mangoshine.doc.annotation.MissingContextException;
 import com.mangoshine.doc.construct.Documentation;
 
 /**
+ * Parses the input files into the Documentation, or into
+ * any other DocEventListener.
  *
+ * Parsing a file happens in two steps. The file is first scanned
+ * for the lines that matter to the documentation, which is where
+ * nearly all of the time goes and which does not depend on any other
+ * file. The scanned lines are then replayed through a ParserHelper,
+ * one file at a time and in input order, so the result is the same
+ * no matter how many files are scanned at once.
  */
 public class Parser {
+    /* Name of the cache directory inside the output directory */
+    private static final String CACHE_DIR = ".mangodoc-cache";
+
+    /* The cache of scanned files, null if caching is off */
+    private ScanCache cache = null;
+
+    /* The scanned files from the last parse, in the order they were found */
+    private Map<Path, ScannedFile> scannedFiles = new LinkedHashMap<>();
+
+    /* The pages each file touched during the last parse */
+    private Map<Path, Set<String>> pages = new HashMap<>();
+
+    /* The archive each file found inside an archive came from */
+    private Map<Path, Path> archives = new HashMap<>();
+
+    /* Files that have changed since they were last scanned */
+    private Set<Path> dirty = new HashSet<>();
+
+    /* The build being parsed */
+    private final DocBuild build;
+    private final Config config;
+
+    /* Receives what is parsed */
+    private final DocEventListener listener;
 
     /**
-     * Construct a parser.
+     * Construct a parser that builds the build's Documentation.
      */
-    public Parser() {
+    public Parser(DocBuild build) {
+        this(build, new DocumentationBuilder(build.getDocumentation()));
+    }
 
+    /**
+     * Construct a parser that only passes what it parses on to the
+     * listener. The build's Documentation is left empty.
+     */
+    public Parser(DocBuild build, DocEventListener listener) {
+        this.build = build;
+        this.config = build.getConfig();
+        this.listener = listener;
+        if (config.isCached()) {
+            cache = new ScanCache(new File(config.getOutputDir(), CACHE_DIR), config.getEncoding());
+        }
     }
 
     /**
-     * Parse each input file specified in the config.
+     * Parse each input specified in the config.
      */
     public Documentation parse()
             throws IOException,
                    AnnotationException {
-        List<String> inputs = Config.INSTANCE.getInputs();
-        for (String input : inputs) {
-            parse(new File(input));
+        update(Collections.<Path>emptySet());
+        return build.getDocumentation();
+    }
+
+    /**
+     * Parse the inputs again after the given files have changed.
+     *
+     * Input directories and archives are searched for source files. Each
+     * file that is new or has changed is scanned on a fixed pool of threads
+     * as soon as it is found, and the scans of the other files are reused.
+     * The files are then replayed into the listener in the order they
+     * were found, each one as soon as it and every file before it have
+     * been scanned.
+     *
+     * Returns the names of the pages that the changed, new and
+     * removed files touched, both before and after the change.
+     */
+    public Set<String> update(Set<Path> changed)
+            throws IOException,
+                   AnnotationException {
+        SourceFinder finder = new SourceFinder(config.getIncludes(), config.getExcludes(),
+                                               build.getLogger());
+        ExecutorService pool = Executors.newFixedThreadPool(config.getThreads());
+        // chunks of large files get their own threads, since the
+        // file's scan waits for them on a thread of the main pool
+        final ExecutorService chunkPool = config.getThreads() > 1
+                                          ? Executors.newFixedThreadPool(config.getThreads())
+                                          : null;
+
+        // if this update fails, the changed files still need scanning next time
+        dirty.addAll(changed);
+        listener.onStart();
+
+        try {
+            Map<Path, Future<ScannedFile>> scans = new LinkedHashMap<>();
+            Map<Path, Path> nowArchives = new HashMap<>();
+            finder.find(config.getInputs(), path -> {
+                Path key = path.toAbsolutePath().normalize();
+                ScannedFile previous = scannedFiles.get(key);
+                if (previous != null && !dirty.contains(key)) {
+                    scans.put(key, CompletableFuture.completedFuture(previous));
+                } else {
+                    final File file = path.toFile();
+                    scans.put(key, pool.submit(() -> scan(file, chunkPool)));
+                }
+            }, null, (archive, name, content) -> {
+                // files in archives are keyed as if the archive were a directory
+                Path archiveKey = archive.toAbsolutePath().normalize();
+                Path key = archiveKey.resolve(name);
+                nowArchives.put(key, archiveKey);
+                ScannedFile previous = scannedFiles.get(key);
+                if (previous != null && !dirty.contains(key) && !dirty.contains(archiveKey)) {
+                    scans.put(key, CompletableFuture.completedFuture(previous));
+                } else {
+                    scans.put(key, pool.submit(() -> scan(content, key.toString(), chunkPool)));
+                }
+            });
+
+            Map<Path, ScannedFile> nowScanned = new LinkedHashMap<>();
+            Map<Path, Set<String>> nowPages = new HashMap<>();
+            InternPool names = new InternPool();
+            for (Map.Entry<Path, Future<ScannedFile>> scan : scans.entrySet()) {
+                ScannedFile file = await(scan.getValue());
+                nowScanned.put(scan.getKey(), file);
+                nowPages.put(scan.getKey(), replay(file, names));
+            }
+            listener.onEnd();
+            if (cache != null) {
+                cache.prune();
+            }
+
+            Set<String> touched = new HashSet<>();
+            Set<Path> paths = new HashSet<>(scannedFiles.keySet());
+            paths.addAll(nowScanned.keySet());
+            for (Path path : paths) {
+                if (isDirty(path) || !scannedFiles.containsKey(path) || !nowScanned.containsKey(path)) {
+                    addAll(touched, pages.get(path));
+                    addAll(touched, nowPages.get(path));
+                }
+            }
+
+            scannedFiles = nowScanned;
+            pages = nowPages;
+            archives = nowArchives;
+            dirty.clear();
+            return touched;
+        } finally {
+            pool.shutdownNow();
+            if (chunkPool != null) {
+                chunkPool.shutdownNow();
+            }
         }
+    }
 
-        return Documentation.INSTANCE;
+    /* Returns true if the file, or the archive it is in, has changed */
+    private boolean isDirty(Path path) {
+        Path archive = archives.get(path);
+        return dirty.contains(path) || (archive != null && dirty.contains(archive));
     }
 
     /**
-     * Parse a single file.
-     *
-     * Delegates all work to the ParserHelper.
+     * Returns the source files found during the last parse.
      */
-    private void parse(File file)
+    public Set<Path> getSources() {
+        return scannedFiles.keySet();
+    }
+
+    private static void addAll(Set<String> set, Set<String> values) {
+        if (values != null) {
+            set.addAll(values);
+        }
+    }
+
+    /**
+     * Waits for a scan to finish, rethrowing whatever it threw.
+     */
+    private ScannedFile await(Future<ScannedFile> scan)
             throws IOException,
                    AnnotationException {
+        try {
+            return scan.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while parsing");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof AnnotationException) {
+                throw (AnnotationException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Scan a single file for comment lines, instance properties
+     * and the code lines that reset the context.
+     * Unchanged files are loaded from the cache instead, if there is one.
+     * Large files are always scanned from their bytes, split into chunks
+     * that are scanned on the chunk pool, if there is one.
+     * A scan is cached along with the hash of the bytes it was made from.
+     */
+    private ScannedFile scan(File file, ExecutorService chunkPool)
+            throws IOException,
+                   AnnotationException {
+        ScannedFile scanned;
+        ScanCache.Stamp stamp = null;
+        if (cache != null) {
+            if ((scanned = cache.load(file)) != null) {
+                return scanned;
+            }
+            stamp = new ScanCache.Stamp(file);
+        }
+
+        long length = file.length();
+        Charset encoding = config.getEncoding();
+        boolean bytes = ByteScanner.supports(encoding) && length <= Integer.MAX_VALUE;
+        if (bytes && (config.isMapped() || chunkPool != null && length >= ByteScanner.CHUNK_SIZE * 2)) {
+            ByteBuffer buffer = ByteScanner.read(file.toPath());
+            if (stamp != null) {
+                stamp.update(buffer);
+            }
+            scanned = ByteScanner.scan(buffer, file.toString(), encoding, chunkPool);
+        } else {
+            InputStream in = new FileInputStream(file);
+            scanned = scanLines(stamp != null ? stamp.digest(in) : in, file.toString(), encoding);
+        }
+
+        if (cache != null) {
+            cache.store(file, stamp, scanned);
+        }
+        return scanned;
+    }
+
+    /**
+     * Scan the content of a file that was read from an archive.
+     */
+    private ScannedFile scan(byte[] content, String filename, ExecutorService chunkPool)
+            throws IOException,
+                   AnnotationException {
+        if (ByteScanner.supports(config.getEncoding())) {
+            return ByteScanner.scan(ByteBuffer.wrap(content), filename, config.getEncoding(), chunkPool);
+        }
+        return scanLines(new ByteArrayInputStream(content), filename, config.getEncoding());
+    }
+
+    /**
+     * Scan a single file line by line.
+     */
+    static ScannedFile scanLines(InputStream in, String filename, Charset encoding)
+            throws IOException,
+                   AnnotationException {
+        ScannedFile scanned = new ScannedFile(filename);
+
         try (BufferedReader br = new BufferedReader(
-                    new InputStreamReader(new FileInputStream(file)))) {
+                    new InputStreamReader(in, encoding))) {
             String line;
-            String filename = file.toString();
             int lineNum = 0;
-            ParserHelper pHelper = ParserHelper.INSTANCE;
 
             while ((line = br.readLine()) != null) {
                 lineNum++;
                 line = line.trim();
                 if (Line.isComment(line) && Line.isUseful(line)) {
                     line = Line.trim(line);
-
-                    // Check if there's a new annotation on this line
-                    String annotation = Line.checkForAnnotation(line, lineNum, filename);
-                    if (annotation != "") {
-                        pHelper.handleAnnotation(annotation);
-                    }
-                    // if not, check if it's an instance property
-                    else {
-                        if (Line.isStandaloneInstanceProperty(line)) {
-                            pHelper.handleContextInstanceProperty(line);
-                        }
-                    }
-
-                    switch (Annotation.current) {
-                        case CLASS:             pHelper.handleContextClass(line);
-                                                break;
-                        case PARAM:             pHelper.handleContextParam(line);
-                                                break;
-                        case STATICMETHOD:      pHelper.handleContextStaticMethod(line);
-                                                break;
-                        case INSTANCEMETHOD:    pHelper.handleContextInstanceMethod(line);
-                                                break;
-                        case STATICPROPERTY:    pHelper.handleContextStaticProperty(line);
-                                                break;
-                        case RETURN:            pHelper.handleContextReturn(line);
-                                                break;
-                        case CONSTRUCTOR:       pHelper.handleContextConstructor(line);
-                                                break;
-                        case EVENT:             pHelper.handleContextEvent(line);
-                                                break;
-                        case NAMESPACE:         pHelper.handleContextNamespace(line);
-                                                break;
-                        default:                break;
-                    }
+                    scanned.addComment(lineNum, line,
+                            Line.checkForAnnotation(line, lineNum, filename));
                 }
                 else {
                     // instance properties do not require an annotation
                     if (Line.isInstanceProperty(line)) {
-                        line = Line.trim(line);
-                        pHelper.handleContextInstanceProperty(line);
+                        scanned.addInstanceProperty(lineNum, Line.trim(line));
                     }
                     // if the line has code we reset the context
                     if (!Line.isComment(line)) {
-                        pHelper.setToNoContext();
+                        scanned.addCode(lineNum);
                     }
                 }
             }
         }
+
+        return scanned;
     }
 
     /**
-     * Ensure the file is valid and exists
+     * Replay the scanned lines of a single file.
+     * Returns the names of the pages the file touched.
+     *
+     * Delegates all work to a ParserHelper with a fresh context.
+     * Names and types are shared through the pool of the whole parse.
+     * A line that has nothing to belong to is reported and skipped.
      */
-    private File getFileFromFilename(String filename) {
-        File file =  new File(filename);
-        if (!file.exists()) {
+    private Set<String> replay(ScannedFile file, InternPool names)
+            throws AnnotationException {
+        ParseContext context = new ParseContext(file.getFilename());
+        ParserHelper pHelper = new ParserHelper(context, listener, names);
+        listener.onFile(file.getFilename());
+
+        CommentToken token = new CommentToken(names);
 
+        for (ScannedLine scanned : file.getLines()) {
+            context.setLineNum(scanned.lineNum);
+            try {
+                replay(scanned, token, pHelper);
+            } catch (MissingContextException e) {
+                build.getLogger().error(e.getMessage() + "\nThe line was skipped.");
+            }
         }
 
-        return file;
+        return context.getPages();
+    }
+
+    /* Replays a single scanned line */
+    private static void replay(ScannedLine scanned, CommentToken token, ParserHelper pHelper)
+            throws AnnotationException {
+        switch (scanned.kind) {
+            case COMMENT:
+                token.tokenize(scanned.text, scanned.annotation);
+                // Check if there's a new annotation on this line
+                if (scanned.annotation != Annotation.NONE) {
+                    pHelper.handleAnnotation(scanned.annotation);
+                }
+                // if not, check if it's an instance property
+                else {
+                    if (token.isStandaloneInstanceProperty()) {
+                        pHelper.handleContextInstanceProperty(token);
+                    }
+                }
+                pHelper.handleContext(token);
+                break;
+            case INSTANCE_PROPERTY:
+                pHelper.handleContextInstanceProperty(token.tokenize(scanned.text, Annotation.NONE));
+                break;
+            case CODE:
+                pHelper.setToNoContext();
+                break;
+        }
     }
 }
\ No newline at end of file
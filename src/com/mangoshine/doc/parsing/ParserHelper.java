@@ -1,304 +1,265 @@
 package com.mangoshine.doc.parsing;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 import com.mangoshine.doc.annotation.Annotation;
 import com.mangoshine.doc.annotation.AnnotationException;
+import com.mangoshine.doc.annotation.DuplicateNameException;
 import com.mangoshine.doc.annotation.InvalidAnnotationException;
-import com.mangoshine.doc.annotation.MissingAnnotationValueException;
-import com.mangoshine.doc.construct.ClassEntry;
-import com.mangoshine.doc.construct.ConstructorEntry;
-import com.mangoshine.doc.construct.Documentation;
-import com.mangoshine.doc.construct.Entry;
-import com.mangoshine.doc.construct.MethodEntry;
-import com.mangoshine.doc.construct.NamespaceEntry;
-import com.mangoshine.doc.construct.Parameter;
-import com.mangoshine.doc.construct.PropertyEntry;
-import com.mangoshine.doc.construct.ReturnValue;
-import com.mangoshine.doc.dom.DOMNode;
-import com.mangoshine.doc.util.Pair;
+import com.mangoshine.doc.annotation.MissingContextException;
 
 /**
  * Helper functions for Parser.
- * Singleton.
+ * One helper is created per file, holding that file's ParseContext.
+ * Each handler is given the line already broken into a CommentToken,
+ * and passes what it finds on to the DocEventListener.
+ *
+ * Since context is not carried over from the previous file, a line
+ * that needs a class, namespace or method to belong to before the
+ * file has declared one throws a MissingContextException, which the
+ * Parser reports before skipping the line.
  */
-public enum ParserHelper {
-    INSTANCE;
+public class ParserHelper {
+    /* Handles a line in the context of one annotation */
+    private interface Handler {
+        void handle(ParserHelper helper, CommentToken token) throws AnnotationException;
+    }
+
+    /* The handler for the lines of each annotation's context */
+    private static final Map<Annotation, Handler> HANDLERS = initHandlers();
+
+    private final ParseContext context;
+    private final DocEventListener listener;
+    private final InternPool pool;
+
+    private static Map<Annotation, Handler> initHandlers() {
+        Map<Annotation, Handler> map = new EnumMap<>(Annotation.class);
+        map.put(Annotation.CLASS,           ParserHelper::handleContextClass);
+        map.put(Annotation.PARAM,           ParserHelper::handleContextParam);
+        map.put(Annotation.STATICMETHOD,    ParserHelper::handleContextStaticMethod);
+        map.put(Annotation.INSTANCEMETHOD,  ParserHelper::handleContextInstanceMethod);
+        map.put(Annotation.STATICPROPERTY,  ParserHelper::handleContextStaticProperty);
+        map.put(Annotation.RETURN,          ParserHelper::handleContextReturn);
+        map.put(Annotation.CONSTRUCTOR,     ParserHelper::handleContextConstructor);
+        map.put(Annotation.EVENT,           ParserHelper::handleContextEvent);
+        map.put(Annotation.NAMESPACE,       ParserHelper::handleContextNamespace);
+
+        return map;
+    }
+
+    public ParserHelper(ParseContext context, DocEventListener listener, InternPool pool) {
+        this.context = context;
+        this.listener = listener;
+        this.pool = pool;
+    }
 
     // -------------------------------------------------------------------------
     // Handlers
     // -------------------------------------------------------------------------
 
     /**
-     * Switches context based on the annotation.
+     * Switches context to the annotation.
      */
-    public void handleAnnotation(String annotation) {
-        Annotation.setCurrent(annotation);
+    public void handleAnnotation(Annotation annotation) {
+        context.setCurrent(annotation);
     }
 
     /**
      * Switches context to NONE.
      */
     public void setToNoContext() {
-        Annotation.setCurrent("none");
+        context.setCurrent(Annotation.NONE);
     }
 
-    public String handleDefault(String line, Entry entry) {
-        int start = line.indexOf("{@default ");
-        int end = line.lastIndexOf("}");
-        entry.setDefault(Line.handleLinks(line.substring(start+10, end)));
-        return line.substring(0, start-1);
+    /**
+     * Handles the line based on the current context.
+     */
+    public void handleContext(CommentToken token) throws AnnotationException {
+        Handler handler = HANDLERS.get(context.getCurrent());
+        if (handler != null) {
+            handler.handle(this, token);
+        }
     }
 
     /**
      * Handles the line when in class mode.
      */
-    public void handleContextClass(String line) {
-        Documentation doc = Documentation.INSTANCE;
-        Annotation.Pair ann = parseAnnotation(line);
-
-        if (ann != null && ann.type.equals("class")) {
-            doc.addEntry(new ClassEntry(ann.value));
-            Annotation.CLASS.setCurrentName(ann.value);
-            Annotation.setCurrentClassOrMethod(ann.type);
-            Annotation.setCurrentClassOrNamespace(ann.type);
+    public void handleContextClass(CommentToken token) throws AnnotationException {
+        if (isDeclaration(token, Annotation.CLASS)) {
+            String name = pool.intern(token.getAnnotationValue());
+            try {
+                listener.onClass(name);
+            } catch (IllegalArgumentException e) {
+                throw new DuplicateNameException("@class " + name, context.getLineNum(), context.getFilename());
+            }
+            context.touch(name);
+            context.setCurrentName(Annotation.CLASS, name);
+            context.setCurrentClassOrMethod(Annotation.CLASS);
+            context.setCurrentClassOrNamespace(Annotation.CLASS);
         } else {
-            Entry entry = doc.getEntry(Annotation.CLASS.getCurrentName());
-            entry.appendToDescription(line);
+            listener.onDescriptionChunk(Annotation.CLASS,
+                                        require(context.getCurrentName(Annotation.CLASS), Annotation.CLASS),
+                                        token.getLine());
         }
     }
 
-    public void handleContextNamespace(String line) {
-        Documentation doc = Documentation.INSTANCE;
-        Annotation.Pair ann = parseAnnotation(line);
-        Entry parentEntry;
-
-        if (ann != null && ann.type.equals("namespace")) {
-            doc.addEntry(new NamespaceEntry(ann.value));
-            Annotation.NAMESPACE.setCurrentName(ann.value);
-            Annotation.setCurrentClassOrNamespace(ann.type);
-
-            // check if it is a nested namespace
-            int period = ann.value.lastIndexOf(".");
+    public void handleContextNamespace(CommentToken token) throws AnnotationException {
+        if (isDeclaration(token, Annotation.NAMESPACE)) {
+            String name = pool.intern(token.getAnnotationValue());
             try {
-                parentEntry = doc.getEntry(ann.value.substring(0, period));
-                parentEntry.addNestedNamespace(doc.getEntry(ann.value));
-            } catch( Exception e) {
-
+                listener.onNamespace(name);
+            } catch (IllegalArgumentException e) {
+                throw new DuplicateNameException("@namespace " + name, context.getLineNum(), context.getFilename());
+            }
+            context.touch(name);
+            context.setCurrentName(Annotation.NAMESPACE, name);
+            context.setCurrentClassOrNamespace(Annotation.NAMESPACE);
+
+            // a nested namespace is listed on its parent's page
+            int period = name.lastIndexOf('.');
+            if (period > -1) {
+                context.touch(name.substring(0, period));
             }
         } else {
-            Entry entry = doc.getEntry(Annotation.NAMESPACE.getCurrentName());
-            entry.appendToDescription(line);
+            listener.onDescriptionChunk(Annotation.NAMESPACE,
+                                        require(context.getCurrentName(Annotation.NAMESPACE), Annotation.NAMESPACE),
+                                        token.getLine());
         }
     }
 
-    public void handleContextConstructor(String line) {
-        Documentation doc = Documentation.INSTANCE;
-        Entry parentEntry = doc.getEntry(Annotation.CLASS.getCurrentName());
-        Annotation.Pair ann = parseAnnotation(line);
-        Entry entry = parentEntry.getConstructor();
+    public void handleContextConstructor(CommentToken token) throws AnnotationException {
+        String className = require(context.getCurrentName(Annotation.CLASS), Annotation.CONSTRUCTOR);
 
-        if (ann != null && ann.type.equals("constructor") ) {
-            entry.appendToDescription(ann.value);
-            Annotation.CONSTRUCTOR.setCurrentName(parentEntry.getName());
+        if (isDeclaration(token, Annotation.CONSTRUCTOR)) {
+            listener.onDescriptionChunk(Annotation.CONSTRUCTOR, className, token.getAnnotationValue());
+            context.setCurrentName(Annotation.CONSTRUCTOR, className);
         } else {
-            entry.appendToDescription(line);
+            listener.onDescriptionChunk(Annotation.CONSTRUCTOR, className, token.getLine());
         }
     }
 
     /**
      * Handles the line when in param mode.
+     * A line without an annotation continues the previous parameter's description.
      */
-    public void handleContextParam(String line) {
-        Documentation doc = Documentation.INSTANCE;
-        Annotation currentClassOrMethod = Annotation.currentClassOrMethod;
-        Entry entry = null;
-        if (currentClassOrMethod == Annotation.CLASS) {
-            entry = doc.getEntry(currentClassOrMethod.getCurrentName());
-        } else {
-            entry = doc.getEntry(Annotation.CLASS.getCurrentName(), currentClassOrMethod.getCurrentName());
+    public void handleContextParam(CommentToken token) throws AnnotationException {
+        Annotation ownerType = context.getCurrentClassOrMethod();
+        String ownerKey = require(ownerType != null ? context.getCurrentName(ownerType) : null, Annotation.PARAM);
+        // the parameters of a class belong to its constructor
+        if (ownerType == Annotation.CLASS) {
+            ownerType = Annotation.CONSTRUCTOR;
         }
-        Annotation.Pair ann = parseAnnotation(line);
-        Parameter param = parseParam(line);
 
-        if (currentClassOrMethod == Annotation.CLASS) {
-            entry.getConstructor().addParameter(param);
+        if (token.isAnnotation()) {
+            listener.onParam(ownerType, ownerKey, token.getName(), token.getType(), token.getDescription());
         } else {
-            entry.addParameter(param);
+            listener.onParamDescriptionChunk(ownerType, ownerKey, token.getLine());
         }
     }
 
-    private void handleContextMethod(String line, Annotation annotationType) {
-        Documentation doc = Documentation.INSTANCE;
-        MethodEntry method;
-        Annotation.Pair ann = parseAnnotation(line);
-        Entry parentEntry = doc.getEntry(Annotation.CLASS.getCurrentName());
-        String methodName;
-
-        if (ann != null && (ann.type.equals("staticmethod")
-                         || ann.type.equals("instancemethod")
-                         || ann.type.equals("event"))) {
-            if (line.contains("#")) {
-                int pound = ann.value.indexOf("#");
-                parentEntry = doc.getEntry(ann.value.substring(0, pound));
-                methodName = ann.value.substring(pound+1, ann.value.length());
-                method = new MethodEntry(annotationType, methodName);
-                // method.setReturnValue("undefined", "");
-                parentEntry.addMethod(method);
-                // annotationType.setCurrentName(parentEntry.getName(), methodName);
-                doc.addEntry(parentEntry.getName(), method);
-                annotationType.setCurrentName(methodName);
-                Annotation.setCurrentClassOrMethod(ann.type);
+    private void handleContextMethod(CommentToken token, Annotation annotationType) throws AnnotationException {
+        if (isDeclaration(token, annotationType)) {
+            String value = token.getAnnotationValue();
+            int pound = value.indexOf('#');
+            if (pound > -1) {
+                String parentName = pool.intern(value, 0, pound);
+                String methodName = pool.intern(value, pound+1, value.length());
+                listener.onMethod(annotationType, parentName, methodName);
+                context.touch(parentName);
+                context.setCurrentName(annotationType, parentName, methodName);
+                context.setCurrentClassOrMethod(annotationType);
             }
         } else {
-            Entry entry  = doc.getEntry(parentEntry.getName(), annotationType.getCurrentName());
-
-            try {
-                entry.appendToDescription(line);
-                // System.out.println("appended [" + line + "] to function " +  entry.getName());
-            } catch (Exception e) {
-                System.err.println("error on line : " + line);
-                e.printStackTrace();
-            }
+            String key = require(context.getCurrentName(annotationType), annotationType);
+            listener.onDescriptionChunk(annotationType, key, token.getLine());
         }
     }
 
-    public void handleContextProperty(String line, Annotation propertyType) {
-        Documentation doc = Documentation.INSTANCE;
-        // Entry parentEntry = doc.getEntry(Annotation.CLASS.getCurrentName());
-        Entry parentEntry = doc.getEntry(Annotation.currentClassOrNamespace.getCurrentName());
-        Annotation.Pair ann = parseAnnotation(line);
-        Entry property;
-        String propertyName;
+    public void handleContextProperty(CommentToken token, Annotation propertyType) throws AnnotationException {
+        Annotation parentType = context.getCurrentClassOrNamespace();
+        String parentName = parentType != null ? context.getCurrentName(parentType) : null;
 
         // if it's the static property annotation declaration line
-        if (ann != null && ann.type.equals("staticproperty") ) {
-            int period = ann.value.indexOf(".");
-            try {
-                parentEntry = doc.getEntry(ann.value.substring(0, period));
-            } catch( Exception e) {
-                System.err.println(ann + " could not be substringed");
-                System.exit(-1);
+        if (isDeclaration(token, Annotation.STATICPROPERTY)) {
+            String value = token.getAnnotationValue();
+            int period = value.indexOf('.');
+            if (period < 0) {
+                throw new InvalidAnnotationException(value, context.getLineNum(), context.getFilename());
             }
-            propertyName = ann.value.substring(period+1, ann.value.length());
-            property = new PropertyEntry(propertyType, propertyName);
+            parentName = pool.intern(value, 0, period);
+            String propertyName = pool.intern(value, period+1, value.length());
 
-            parentEntry.addProperty(property);
-            doc.addEntry(parentEntry.getName(), property);
-            Annotation.STATICPROPERTY.setCurrentName(propertyName);
-            Annotation.setCurrentClassOrMethod(ann.type);
+            listener.onProperty(propertyType, parentName, propertyName, "", null, "");
+            context.touch(parentName);
+            context.setCurrentName(Annotation.STATICPROPERTY, parentName, propertyName);
+            context.setCurrentClassOrMethod(Annotation.STATICPROPERTY);
         } else {
             if (propertyType == Annotation.INSTANCEPROPERTY) {
-                Parameter parameter = parseParam(line);
-                property = new PropertyEntry(propertyType, parameter.getName());
-                property.setType(parameter.getArgType());
-                String description = parameter.getPlainDescription();
-                if (Line.containsDefault(description)) {
-                    description = handleDefault(description, property);
-                }
-                property.appendToDescription(description);
-                parentEntry.addProperty(property);
+                String defaultValue = token.hasDefault() ? token.getDefault() : null;
+                listener.onProperty(propertyType, require(parentName, propertyType), token.getName(), token.getType(),
+                                    defaultValue, token.getDescriptionWithoutDefault());
+                context.touch(parentName);
             } else {
-                Pair<String, String> typeDescription = parseStaticProperty(line);
-                property = doc.getEntry(parentEntry.getName(),
-                        Annotation.currentClassOrMethod.getCurrentName());
-                if (property == null) {
-                    String s = Annotation.currentClassOrMethod +"\n"+
-                        Annotation.currentClassOrMethod.getCurrentName() +"\n"+
-                        line +"\n";
-                    System.err.println(s);
-                    System.exit(-200);
+                Annotation currentClassOrMethod = context.getCurrentClassOrMethod();
+                String key = require(currentClassOrMethod != null ? context.getCurrentName(currentClassOrMethod) : null,
+                                     propertyType);
+                // the type is only given on the first line of the description
+                if (token.getType().length() > 0) {
+                    listener.onType(currentClassOrMethod, key, token.getType());
+                    listener.onDescriptionChunk(currentClassOrMethod, key, token.getTrailingDescription());
+                } else {
+                    listener.onDescriptionChunk(currentClassOrMethod, key, token.getLine());
                 }
-                property.setType(typeDescription.first);
-                property.appendToDescription(typeDescription.second);
             }
         }
     }
 
-    public void handleContextInstanceMethod(String line) {
-        handleContextMethod(line, Annotation.INSTANCEMETHOD);
+    public void handleContextInstanceMethod(CommentToken token) throws AnnotationException {
+        handleContextMethod(token, Annotation.INSTANCEMETHOD);
     }
 
-    public void handleContextStaticMethod(String line) {
-        handleContextMethod(line, Annotation.STATICMETHOD);
+    public void handleContextStaticMethod(CommentToken token) throws AnnotationException {
+        handleContextMethod(token, Annotation.STATICMETHOD);
     }
 
-    public void handleContextEvent(String line) {
-        handleContextMethod(line, Annotation.EVENT);
+    public void handleContextEvent(CommentToken token) throws AnnotationException {
+        handleContextMethod(token, Annotation.EVENT);
     }
 
-    public void handleContextInstanceProperty(String line) {
-        handleContextProperty(line, Annotation.INSTANCEPROPERTY);
+    public void handleContextInstanceProperty(CommentToken token) throws AnnotationException {
+        handleContextProperty(token, Annotation.INSTANCEPROPERTY);
     }
 
-    public void handleContextStaticProperty(String line) {
-        handleContextProperty(line, Annotation.STATICPROPERTY);
+    public void handleContextStaticProperty(CommentToken token) throws AnnotationException {
+        handleContextProperty(token, Annotation.STATICPROPERTY);
     }
 
-    public void handleContextReturn(String line) {
-        Documentation doc = Documentation.INSTANCE;
-        Annotation.Pair ann = parseAnnotation(line);
-
+    public void handleContextReturn(CommentToken token) throws AnnotationException {
         // if it's the return declaration
-        if (ann != null && ann.type.equals("return")) {
-            ReturnValue returnValue = parseReturn(line);
-            Entry entry = doc.getEntry(Annotation.CLASS.getCurrentName(),
-                    Annotation.currentClassOrMethod.getCurrentName());
-            entry.setReturnValue(returnValue);
+        if (isDeclaration(token, Annotation.RETURN)) {
+            Annotation ownerType = context.getCurrentClassOrMethod();
+            String ownerKey = require(ownerType != null ? context.getCurrentName(ownerType) : null, Annotation.RETURN);
+            listener.onReturn(ownerType, ownerKey, token.getType(), token.getReturnDescription());
         }
     }
 
-    // -------------------------------------------------------------------------
-    // specific parsers
-    // -------------------------------------------------------------------------
-
     /**
-     * Retrieves a pair of annotation type => annotation value
+     * Returns the name of what the line belongs to, or throws
+     * if the file has not declared anything for it to belong to.
      */
-    private Annotation.Pair parseAnnotation(String line) {
-        if (!Line.isAnnotation(line)) return null;
-        int space = line.indexOf(' ');
-        if (space < 0) {
-            return new Annotation.Pair("", "");
+    private String require(String name, Annotation annotation) throws MissingContextException {
+        if (name == null) {
+            throw new MissingContextException("@" + annotation.name().toLowerCase(),
+                                              context.getLineNum(), context.getFilename());
         }
-        return new Annotation.Pair(line.substring(1, space),
-                line.substring(space+1, line.length()));
-    }
-
-    /**
-     * Parses a param line.
-     */
-    private Parameter parseParam(String line) {
-        String name, argType, description;
-        int i, j;
-        i = line.indexOf('}');
-        argType = line.substring(line.indexOf('{')+1, i);
-        j = line.indexOf(':');
-        name = line.substring(i+1, j).trim();
-        description = line.substring(j+1, line.length()).trim();
-
-        return new Parameter(name, argType, description);
-    }
-
-    /**
-     * Parses a static property.
-     * @return a pair with type, description
-     */
-    private Pair<String, String> parseStaticProperty(String line) {
-        String type, description;
-        int i, j;
-        i = line.indexOf('}');
-        type = line.substring(line.indexOf('{')+1, i);
-        description = line.substring(i+1, line.length()).trim();
-
-        return new Pair<String, String>(type, description);
+        return name;
     }
 
     /**
-     * Parses a parameter line.
+     * Returns true if the line declares an annotation of the given type.
      */
-    private ReturnValue parseReturn(String line) {
-        String type, description;
-        type = line.substring(line.indexOf('{')+1, line.indexOf('}'));
-        description = line.substring(line.indexOf(':')+1, line.length());
-        return new ReturnValue(type, description);
+    private boolean isDeclaration(CommentToken token, Annotation type) {
+        return token.getAnnotation() == type;
     }
 }
\ No newline at end of file
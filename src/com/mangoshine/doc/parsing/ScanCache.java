@@ -0,0 +1,278 @@
+package com.mangoshine.doc.parsing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.mangoshine.doc.annotation.Annotation;
+
+/**
+ * An on disk cache of scanned files, so that files which haven't
+ * changed since the last run don't need to be scanned again.
+ *
+ * Each source file has its own cache file, holding the file's
+ * encoding, modification time, size and content hash followed by its
+ * scanned lines. An entry is used when the modification time and size still
+ * match, or when they don't but the content hash does.
+ *
+ * The time and size are taken before the file is read, and the hash is
+ * of the very bytes that were scanned, so a file that is changed while
+ * it is being scanned doesn't match the scan that is stored for it.
+ *
+ * The scanned lines are cached rather than the entries themselves,
+ * because an entry may be declared in one file and documented in
+ * another. Replaying the cached lines is cheap compared to scanning.
+ */
+public class ScanCache {
+    /* Bump this whenever the scanned output or the format changes */
+    private static final int VERSION = 3;
+
+    private final File dir;
+
+    /* The encoding the files are scanned in */
+    private final Charset encoding;
+
+    /* Names of the cache files used during this run */
+    private final Set<String> used = ConcurrentHashMap.newKeySet();
+
+    public ScanCache(File dir, Charset encoding) {
+        this.dir = dir;
+        this.encoding = encoding;
+    }
+
+    /**
+     * Returns the cached scan of the file, or null if there is
+     * none or the file has changed since it was cached.
+     */
+    public ScannedFile load(File file) throws IOException {
+        File cacheFile = cacheFile(file);
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+
+        Annotation[] annotations = Annotation.values();
+        ScannedFile scanned;
+        boolean touched;
+        Stamp stamp = null;
+        try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != VERSION || !readString(in).equals(file.getAbsolutePath())
+                    || !readString(in).equals(encoding.name())) {
+                return null;
+            }
+            long lastModified = in.readLong();
+            long length = in.readLong();
+            byte[] hash = new byte[in.readUnsignedByte()];
+            in.readFully(hash);
+
+            long nowLength = file.length();
+            long nowModified = file.lastModified();
+            if (length != nowLength) {
+                return null;
+            }
+            touched = lastModified != nowModified;
+            if (touched) {
+                byte[] nowHash = hash(file);
+                if (!Arrays.equals(hash, nowHash)) {
+                    return null;
+                }
+                stamp = new Stamp(nowModified, nowLength, nowHash);
+            }
+
+            scanned = new ScannedFile(file.toString());
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                ScannedLine.Kind kind = ScannedLine.Kind.values()[in.readUnsignedByte()];
+                int lineNum = in.readInt();
+                switch (kind) {
+                    case COMMENT:           scanned.addComment(lineNum, readString(in),
+                                                annotations[in.readUnsignedByte()]);
+                                            break;
+                    case INSTANCE_PROPERTY: scanned.addInstanceProperty(lineNum, readString(in));
+                                            break;
+                    case CODE:              scanned.addCode(lineNum);
+                                            break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // a damaged cache file is the same as a missing one
+            return null;
+        }
+
+        if (touched) {
+            // only the time changed, store the new one so the hash isn't needed next run
+            store(file, stamp, scanned);
+        }
+        return scanned;
+    }
+
+    /**
+     * Stores the scan of the file, with the stamp taken as it was read.
+     */
+    public void store(File file, Stamp stamp, ScannedFile scanned) throws IOException {
+        dir.mkdirs();
+        File cacheFile = cacheFile(file);
+        File tmp = File.createTempFile(cacheFile.getName(), ".tmp", dir);
+
+        try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(VERSION);
+            writeString(out, file.getAbsolutePath());
+            writeString(out, encoding.name());
+            out.writeLong(stamp.lastModified);
+            out.writeLong(stamp.length);
+            byte[] hash = stamp.hash();
+            out.writeByte(hash.length);
+            out.write(hash);
+
+            out.writeInt(scanned.getLines().size());
+            for (ScannedLine line : scanned.getLines()) {
+                out.writeByte(line.kind.ordinal());
+                out.writeInt(line.lineNum);
+                switch (line.kind) {
+                    case COMMENT:           writeString(out, line.text);
+                                            out.writeByte(line.annotation.ordinal());
+                                            break;
+                    case INSTANCE_PROPERTY: writeString(out, line.text);
+                                            break;
+                    default:                break;
+                }
+            }
+        }
+
+        Files.move(tmp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Deletes the cache files of every source file that
+     * wasn't loaded or stored during this run.
+     */
+    public void prune() {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!used.contains(file.getName())) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Returns the cache file for the source file,
+     * named after the hash of its path.
+     */
+    private File cacheFile(File file) throws IOException {
+        String name = toHex(digest().digest(file.getAbsolutePath().getBytes(StandardCharsets.UTF_8))) + ".scan";
+        used.add(name);
+        return new File(dir, name);
+    }
+
+    private static byte[] hash(File file) throws IOException {
+        MessageDigest digest = digest();
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[65536];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, len);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest digest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The modification time and size of a source file from before it was
+     * read, and the hash of the bytes that were read from it.
+     */
+    public static class Stamp {
+        private final long lastModified;
+        private final long length;
+        private final MessageDigest digest;
+        private byte[] hash;
+
+        /**
+         * Takes the time and size of the file, which is about to be read.
+         */
+        public Stamp(File file) throws IOException {
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+            this.digest = ScanCache.digest();
+        }
+
+        private Stamp(long lastModified, long length, byte[] hash) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.digest = null;
+            this.hash = hash;
+        }
+
+        /**
+         * Returns the stream, hashing every byte that is read through it.
+         */
+        public InputStream digest(InputStream in) {
+            return new DigestInputStream(in, digest);
+        }
+
+        /**
+         * Hashes the remaining bytes of the buffer, without moving it.
+         */
+        public void update(ByteBuffer buffer) {
+            digest.update(buffer.duplicate());
+        }
+
+        private byte[] hash() {
+            if (hash == null) {
+                hash = digest.digest();
+            }
+            return hash;
+        }
+    }
+
+    /* Strings are written as a length and UTF-8 bytes, since
+       writeUTF() can't hold lines longer than 64K */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
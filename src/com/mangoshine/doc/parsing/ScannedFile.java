@@ -0,0 +1,75 @@
+package com.mangoshine.doc.parsing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.mangoshine.doc.annotation.Annotation;
+
+/**
+ * The scanned lines of a single source file, in source order.
+ * Scanning a file does not depend on any other file, so files
+ * can be scanned in any order and then replayed in input order.
+ */
+public class ScannedFile {
+    private final String filename;
+    private final List<ScannedLine> lines = new ArrayList<>();
+
+    /* The number of lines in the file, only known when it was scanned from its bytes */
+    private int lineCount = 0;
+
+    public ScannedFile(String filename) {
+        this.filename = filename;
+    }
+
+    public void addComment(int lineNum, String text, Annotation annotation) {
+        lines.add(new ScannedLine(ScannedLine.Kind.COMMENT, lineNum, text, annotation));
+    }
+
+    public void addInstanceProperty(int lineNum, String text) {
+        lines.add(new ScannedLine(ScannedLine.Kind.INSTANCE_PROPERTY, lineNum, text, Annotation.NONE));
+    }
+
+    /**
+     * Adds a code line, unless the previous line was code as well.
+     */
+    public void addCode(int lineNum) {
+        int size = lines.size();
+        if (size > 0 && lines.get(size-1).kind == ScannedLine.Kind.CODE) {
+            return;
+        }
+        lines.add(new ScannedLine(ScannedLine.Kind.CODE, lineNum, "", Annotation.NONE));
+    }
+
+    /**
+     * Adds the lines of a later part of the same file,
+     * whose line numbers start after the given offset.
+     */
+    public void append(ScannedFile part, int lineOffset) {
+        for (ScannedLine line : part.getLines()) {
+            switch (line.kind) {
+                case COMMENT:           addComment(line.lineNum + lineOffset, line.text, line.annotation);
+                                        break;
+                case INSTANCE_PROPERTY: addInstanceProperty(line.lineNum + lineOffset, line.text);
+                                        break;
+                case CODE:              addCode(line.lineNum + lineOffset);
+                                        break;
+            }
+        }
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public void setLineCount(int lineCount) {
+        this.lineCount = lineCount;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public List<ScannedLine> getLines() {
+        return lines;
+    }
+}
\ No newline at end of file
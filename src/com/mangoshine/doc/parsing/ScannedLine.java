@@ -0,0 +1,35 @@
+package com.mangoshine.doc.parsing;
+
+import com.mangoshine.doc.annotation.Annotation;
+
+/**
+ * A single line of a source file that matters to the documentation.
+ * Comment and instance property lines keep their text with the
+ * // prefix trimmed. Runs of code lines are collapsed into a single
+ * CODE line, since all they do is reset the context.
+ */
+public class ScannedLine {
+    public enum Kind {
+        COMMENT,
+        INSTANCE_PROPERTY,
+        CODE
+    }
+
+    public final Kind kind;
+    public final int lineNum;
+    public final String text;
+
+    /* The annotation declared on the line, or NONE */
+    public final Annotation annotation;
+
+    public ScannedLine(Kind kind, int lineNum, String text, Annotation annotation) {
+        this.kind = kind;
+        this.lineNum = lineNum;
+        this.text = text;
+        this.annotation = annotation;
+    }
+
+    public String toString() {
+        return kind + " " + lineNum + " : " + text;
+    }
+}
\ No newline at end of file
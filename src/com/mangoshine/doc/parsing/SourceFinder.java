@@ -0,0 +1,247 @@
+package com.mangoshine.doc.parsing;
+
+import java.io.BufferedInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import com.mangoshine.doc.logging.Logger;
+
+/**
+ * Finds the source files for the inputs.
+ *
+ * Files are handed to the consumer as soon as they are found, so they
+ * can be scanned while the rest of the inputs are still being listed.
+ * Directories are walked recursively in sorted order, following
+ * symbolic links, and only the files that match an include pattern and
+ * no exclude pattern are handed on. Files given directly as inputs are
+ * always handed on.
+ *
+ * Patterns are globs matched against the path relative to the
+ * input directory that is being walked.
+ *
+ * Zip, jar and tar.gz archives given as inputs are searched the same
+ * way as directories, with the patterns matched against the path inside
+ * the archive. Their matching files are read straight out of the archive
+ * into memory and handed to the entry consumer, nothing is extracted.
+ */
+public class SourceFinder {
+    /**
+     * Receives the files found inside archives.
+     */
+    public interface EntryConsumer {
+        void accept(Path archive, String name, byte[] content) throws IOException;
+    }
+
+    private final List<PathMatcher> includes = new ArrayList<>();
+    private final List<PathMatcher> excludes = new ArrayList<>();
+
+    /* Matches directories that the exclude patterns exclude entirely,
+       so they don't need to be walked at all. */
+    private final List<PathMatcher> excludedDirs = new ArrayList<>();
+
+    /* Every directory walked so far, by file key */
+    private final Set<Object> visited = new HashSet<>();
+
+    private final Logger logger;
+
+    public SourceFinder(List<String> includePatterns, List<String> excludePatterns, Logger logger) {
+        this.logger = logger;
+        FileSystem fs = FileSystems.getDefault();
+        for (String pattern : includePatterns) {
+            includes.add(compile(fs, pattern));
+        }
+        for (String pattern : excludePatterns) {
+            excludes.add(compile(fs, pattern));
+            if (pattern.endsWith("/**")) {
+                excludedDirs.add(compile(fs, pattern.substring(0, pattern.length()-3)));
+            }
+        }
+    }
+
+    /**
+     * Finds the files for each of the inputs, in order.
+     */
+    public void find(List<String> inputs, Consumer<Path> consumer) throws IOException {
+        find(inputs, consumer, null);
+    }
+
+    /**
+     * Finds the files for each of the inputs, in order, also handing
+     * each directory that is walked to the directory consumer.
+     */
+    public void find(List<String> inputs, Consumer<Path> consumer, Consumer<Path> dirConsumer)
+            throws IOException {
+        find(inputs, consumer, dirConsumer, null);
+    }
+
+    /**
+     * Finds the files for each of the inputs, in order, handing the files
+     * inside archives to the entry consumer. Archives are treated as plain
+     * files when there is no entry consumer.
+     */
+    public void find(List<String> inputs, Consumer<Path> consumer, Consumer<Path> dirConsumer,
+                     EntryConsumer entryConsumer) throws IOException {
+        for (String input : inputs) {
+            Path path = Paths.get(input);
+            if (Files.isDirectory(path)) {
+                walk(path, path, consumer, dirConsumer);
+            } else if (!Files.exists(path)) {
+                throw new FileNotFoundException("Input not found : " + input);
+            } else if (entryConsumer != null && isZip(path)) {
+                findInZip(path, entryConsumer);
+            } else if (entryConsumer != null && isTar(path)) {
+                findInTar(path, entryConsumer);
+            } else {
+                consumer.accept(path);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the path is a zip or jar archive.
+     */
+    public static boolean isZip(Path path) {
+        String name = path.getFileName().toString().toLowerCase();
+        return name.endsWith(".zip") || name.endsWith(".jar");
+    }
+
+    /**
+     * Returns true if the path is a gzipped tar archive.
+     */
+    public static boolean isTar(Path path) {
+        String name = path.getFileName().toString().toLowerCase();
+        return name.endsWith(".tar.gz") || name.endsWith(".tgz");
+    }
+
+    /**
+     * Walks the zip file system of the archive, reading each matching file.
+     */
+    private void findInZip(Path archive, EntryConsumer entryConsumer) throws IOException {
+        try (FileSystem zip = FileSystems.newFileSystem(archive, (ClassLoader) null)) {
+            Path root = zip.getPath("/");
+            walk(root, root, child -> {
+                try {
+                    entryConsumer.accept(archive, root.relativize(child).toString(),
+                                         Files.readAllBytes(child));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, null);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Streams through the tar archive, reading each matching file.
+     */
+    private void findInTar(Path archive, EntryConsumer entryConsumer) throws IOException {
+        try (InputStream in = new GZIPInputStream(
+                    new BufferedInputStream(Files.newInputStream(archive)), 65536)) {
+            TarReader tar = new TarReader(in);
+            String name;
+            Path relative;
+            while ((name = tar.next()) != null) {
+                relative = Paths.get(name).normalize();
+                if (matchesAny(includes, relative) && !matchesAny(excludes, relative)
+                        && !isExcludedDir(relative.getParent())) {
+                    entryConsumer.accept(archive, relative.toString(), tar.read());
+                }
+            }
+        }
+    }
+
+    /* Returns true if the directory or one of its parents is excluded entirely */
+    private boolean isExcludedDir(Path dir) {
+        for (; dir != null; dir = dir.getParent()) {
+            if (matchesAny(excludedDirs, dir)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Walks the directory, handing on each matching file.
+     */
+    private void walk(Path root, Path dir, Consumer<Path> consumer, Consumer<Path> dirConsumer)
+            throws IOException {
+        if (!visited.add(fileKey(dir))) {
+            logger.log("Skipping directory that was already walked : " + dir);
+            return;
+        }
+        if (dirConsumer != null) {
+            dirConsumer.accept(dir);
+        }
+
+        List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path child : stream) {
+                children.add(child);
+            }
+        }
+        Collections.sort(children);
+
+        Path relative;
+        for (Path child : children) {
+            relative = root.relativize(child);
+            if (Files.isDirectory(child)) {
+                if (!matchesAny(excludedDirs, relative)) {
+                    walk(root, child, consumer, dirConsumer);
+                }
+            } else if (matchesAny(includes, relative) && !matchesAny(excludes, relative)) {
+                consumer.accept(child);
+            }
+        }
+    }
+
+    /**
+     * Returns a key that is the same for every path to the directory,
+     * which is how symbolic link loops are detected.
+     */
+    private Object fileKey(Path dir) throws IOException {
+        Object key = Files.readAttributes(dir, BasicFileAttributes.class).fileKey();
+        return key != null ? key : dir.toRealPath();
+    }
+
+    private static boolean matchesAny(List<PathMatcher> matchers, Path path) {
+        // the patterns belong to the default file system, not to archives
+        if (path.getFileSystem() != FileSystems.getDefault()) {
+            path = Paths.get(path.toString());
+        }
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compiles a glob pattern. A pattern that starts with any number
+     * of directories also matches files directly in the input directory.
+     */
+    private static PathMatcher compile(FileSystem fs, String pattern) {
+        if (pattern.startsWith("**/")) {
+            pattern = "{**/,}" + pattern.substring(3);
+        }
+        return fs.getPathMatcher("glob:" + pattern);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,161 @@
+package com.mangoshine.doc.parsing;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the regular files of a tar archive one after another,
+ * straight from the stream.
+ *
+ * Supports ustar names with a prefix, GNU long names and pax path
+ * headers, which covers the archives made by tar and most build tools.
+ */
+public class TarReader {
+    private static final int BLOCK = 512;
+
+    private final DataInputStream in;
+    private final byte[] header = new byte[BLOCK];
+
+    /* Bytes of the current entry's content that haven't been read */
+    private long remaining = 0;
+    private long padding = 0;
+
+    public TarReader(InputStream in) {
+        this.in = new DataInputStream(in);
+    }
+
+    /**
+     * Moves to the next regular file and returns its name,
+     * or returns null at the end of the archive.
+     */
+    public String next() throws IOException {
+        String longName = null;
+
+        while (true) {
+            skip(remaining + padding);
+            remaining = padding = 0;
+
+            if (!readHeader()) {
+                return null;
+            }
+            String name = longName != null ? longName : headerName();
+            longName = null;
+            long size = octal(124, 12);
+            char type = (char) header[156];
+            remaining = size;
+            padding = (BLOCK - size % BLOCK) % BLOCK;
+
+            switch (type) {
+                case '0':
+                case '\0':
+                case '7':
+                    return name;
+                case 'L':
+                    longName = trimNull(new String(read(), StandardCharsets.UTF_8));
+                    break;
+                case 'x':
+                    longName = paxPath(new String(read(), StandardCharsets.UTF_8));
+                    break;
+                default:
+                    // directories, links and everything else have no source in them
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Reads the whole content of the current entry.
+     */
+    public byte[] read() throws IOException {
+        if (remaining > Integer.MAX_VALUE) {
+            throw new IOException("Archive entry too large to read");
+        }
+        byte[] content = new byte[(int) remaining];
+        in.readFully(content);
+        remaining = 0;
+        return content;
+    }
+
+    /* Returns false at the end of the archive, which is marked by an empty block */
+    private boolean readHeader() throws IOException {
+        try {
+            in.readFully(header);
+        } catch (EOFException e) {
+            return false;
+        }
+        for (byte b : header) {
+            if (b != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String headerName() {
+        String name = string(0, 100);
+        // ustar archives keep the start of long names in a prefix
+        if (string(257, 5).equals("ustar")) {
+            String prefix = string(345, 155);
+            if (!prefix.isEmpty()) {
+                name = prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    private String string(int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private long octal(int offset, int length) throws IOException {
+        long value = 0;
+        byte b;
+        for (int i = offset; i < offset + length; i++) {
+            b = header[i];
+            if (b == 0 || b == ' ') {
+                if (value > 0) {
+                    break;
+                }
+                continue;
+            }
+            if (b < '0' || b > '7') {
+                throw new IOException("Invalid tar header");
+            }
+            value = value * 8 + (b - '0');
+        }
+        return value;
+    }
+
+    /* Returns the path record of a pax header, or null if it has none */
+    private static String paxPath(String records) {
+        for (String record : records.split("\n")) {
+            int start = record.indexOf(" path=");
+            if (start > -1) {
+                return record.substring(start + 6);
+            }
+        }
+        return null;
+    }
+
+    private static String trimNull(String s) {
+        int end = s.indexOf('\0');
+        return end > -1 ? s.substring(0, end) : s;
+    }
+
+    private void skip(long n) throws IOException {
+        while (n > 0) {
+            int skipped = in.skipBytes((int) Math.min(n, Integer.MAX_VALUE));
+            if (skipped <= 0) {
+                throw new EOFException("Unexpected end of archive");
+            }
+            n -= skipped;
+        }
+    }
+}
\ No newline at end of file
@@ -5,6 +5,7 @@ package com.mangoshine.doc.writing;
  * ( specified by {{expression}} )
  */
 public enum Expression {
+    CHARSET,
     CONTENT,
     CSS_IMPORT,
     FOOTER,
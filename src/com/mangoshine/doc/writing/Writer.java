@@ -1,13 +1,15 @@
 package com.mangoshine.doc.writing;
 
 import java.io.File;
-import java.io.FileWriter;
-import java.io.InputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
 import com.mangoshine.doc.Config;
+import com.mangoshine.doc.DocBuild;
 import com.mangoshine.doc.asset.AssetLibrary;
 import com.mangoshine.doc.asset.InvalidAssetException;
 import com.mangoshine.doc.annotation.Annotation;
@@ -16,42 +18,39 @@ import com.mangoshine.doc.construct.Documentation;
 import com.mangoshine.doc.construct.Entry;
 
 public class Writer {
-    private WriterHelper wHelper = WriterHelper.INSTANCE;
+    private final Config config;
+    private final WriterHelper wHelper;
 
-    public Writer() {
+    /* Every page is built in the same buffer, and copied out through the other */
+    private final StringBuilder page = new StringBuilder(65536);
+    private final char[] chars = new char[8192];
+
+    public Writer(DocBuild build) {
+        this.config = build.getConfig();
+        this.wHelper = new WriterHelper(build);
     }
 
     public void writeToFile(Documentation jsdoc) throws IOException,
                                                         InvalidAssetException {
-        StringBuilder sb = new StringBuilder();
-        FileWriter writer = null;
-        InputStream src;
-
         // create dirs
         // String baseDirString = System.getProperty("user.dir");
         // File baseDir = new File(baseDirString+"/"+config.getOutputDir());
-        File outputDir = Config.INSTANCE.getOutputDir();
+        File outputDir = config.getOutputDir();
         outputDir.mkdirs();
 
         // index
-        sb.setLength(0);
-        sb.append(wHelper.buildIndexHTML());
-        writeSingleFile(writer, outputDir, "index.html", sb.toString());
+        writeSingleFile(outputDir, "index.html", null);
 
         // each class entry
         Set<Entry> entries = jsdoc.getEntries(Annotation.CLASS);
         for (Entry entry : entries) {
-            sb.setLength(0);
-            sb.append(wHelper.buildClassHTML(entry));
-            writeSingleFile(writer, outputDir, entry.getName()+".html", sb.toString());
+            writePage(outputDir, entry);
         }
 
         // each namespace entry
         entries = jsdoc.getEntries(Annotation.NAMESPACE);
         for (Entry entry : entries) {
-            sb.setLength(0);
-            sb.append(wHelper.buildClassHTML(entry));
-            writeSingleFile(writer, outputDir, entry.getName()+".html", sb.toString());
+            writePage(outputDir, entry);
         }
 
         // style
@@ -66,13 +65,60 @@ public class Writer {
     }
 
     /**
-     * Writes a single file.
+     * Writes only the pages with the given names, and the index if asked.
+     * A page whose class or namespace no longer exists is deleted.
      */
-    private void writeSingleFile(FileWriter writer, File dir,
-            String fileName, String content) throws IOException {
+    public void writePages(Documentation jsdoc, Collection<String> names, boolean index)
+            throws IOException,
+                   InvalidAssetException {
+        File outputDir = config.getOutputDir();
+        outputDir.mkdirs();
+
+        if (index) {
+            writeSingleFile(outputDir, "index.html", null);
+        }
+
+        Entry entry;
+        for (String name : names) {
+            entry = jsdoc.getEntry(name);
+            if (entry != null && (entry.isAnnotationType(Annotation.CLASS)
+                               || entry.isAnnotationType(Annotation.NAMESPACE))) {
+                writePage(outputDir, entry);
+            } else {
+                new File(outputDir, name+".html").delete();
+            }
+        }
+    }
+
+    /**
+     * Writes the page for a class or namespace entry.
+     */
+    private void writePage(File dir, Entry entry)
+            throws IOException,
+                   InvalidAssetException {
+        writeSingleFile(dir, entry.getName()+".html", entry);
+    }
+
+    /**
+     * Writes a single page in the configured encoding, the index if the
+     * entry is null. The whole page is streamed into one reused buffer,
+     * which is then written out without copying it into a String.
+     */
+    private void writeSingleFile(File dir, String fileName, Entry entry)
+            throws IOException,
+                   InvalidAssetException {
         File file = new File(dir, fileName);
-        writer = new FileWriter(file);
-        writer.write(content);
-        writer.close();
+        page.setLength(0);
+        wHelper.writePageHTML(entry, page);
+
+        try (OutputStreamWriter writer = new OutputStreamWriter(
+                    new FileOutputStream(file), config.getEncoding())) {
+            int n;
+            for (int i = 0; i < page.length(); i += n) {
+                n = Math.min(chars.length, page.length() - i);
+                page.getChars(i, i + n, chars, 0);
+                writer.write(chars, 0, n);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -9,6 +9,7 @@ import java.io.FileInputStream;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
@@ -18,17 +19,24 @@ import java.util.Date;
 import java.util.List;
 
 
+import com.mangoshine.doc.DocBuild;
 import com.mangoshine.doc.asset.AssetLibrary;
 import com.mangoshine.doc.asset.InvalidAssetException;
 import com.mangoshine.doc.dom.DOMNode;
 import com.mangoshine.doc.dom.DOMBuilder;
-import com.mangoshine.doc.construct.Documentation;
 import com.mangoshine.doc.construct.Entry;
 
-public enum WriterHelper {
-    INSTANCE;
+/**
+ * Fills in the layout files for the pages of a single build.
+ */
+public class WriterHelper {
+    private final DocBuild build;
+    private final DOMBuilder domBuilder;
 
-    public Entry currentEntry = null;
+    public WriterHelper(DocBuild build) {
+        this.build = build;
+        this.domBuilder = build.getDOMBuilder();
+    }
 
     // private String baseDirString = System.getProperty("user.dir");
     // private File baseDir = new File(baseDirString+"/output");
@@ -51,47 +59,62 @@ public enum WriterHelper {
      *
      * @return position     int[start, end]
      */
-    private int[] expressionStartEnd(String expressionName, StringBuilder sb) {
+    private int[] expressionStartEnd(String expressionName, String line) {
         int[] startEnd = new int[2];
         String expression = "{{" + expressionName.toLowerCase() + "}}";
-        startEnd[0] = sb.indexOf(expression);
+        startEnd[0] = line.indexOf(expression);
         startEnd[1] = startEnd[0]+expression.length();
 
         return startEnd;
     }
 
     /**
-     * Handles the expression.
+     * Handles the expression for the page of the current entry,
+     * which is null for the index.
      */
-    public String handleExpression(Expression expression) {
+    public String handleExpression(Expression expression, Entry currentEntry) {
         switch (expression) {
-            case CONTENT:       return handleContent();
+            case CONTENT:       return handleContent(currentEntry);
             case SIDEBAR:       return handleSidebar();
             case FOOTER:        return handleFooter();
             case CSS_IMPORT:    return handleCssImport();
-            case TITLE:         return handleTitle();
+            case TITLE:         return handleTitle(currentEntry);
+            case CHARSET:       return build.getConfig().getEncoding().name().toLowerCase();
             default:            return "";
         }
     }
 
+    /**
+     * Writes the expression for the page of the current entry to the
+     * Appendable. The content is streamed, the rest are short Strings.
+     */
+    public void writeExpression(Expression expression, Entry currentEntry, Appendable out)
+            throws IOException {
+        if (expression == Expression.CONTENT) {
+            domBuilder.writeContentHTML(currentEntry, out);
+        } else {
+            out.append(handleExpression(expression, currentEntry));
+        }
+    }
+
     private String handleSidebar() {
-        return DOMBuilder.buildSidebarHTML();
+        return domBuilder.buildSidebarHTML();
     }
 
     private String handleFooter() {
-        return DOMBuilder.buildFooterHTML();
+        return domBuilder.buildFooterHTML();
     }
 
-    private String handleContent() {
-        return DOMBuilder.buildContentHTML();
+    private String handleContent(Entry currentEntry) {
+        return domBuilder.buildContentHTML(currentEntry);
     }
 
     private String handleCssImport() {
         return "style.css";
     }
 
-    private String handleTitle() {
-        return DOMBuilder.buildTitleHTML();
+    private String handleTitle(Entry currentEntry) {
+        return domBuilder.buildTitleHTML(currentEntry);
     }
 
     /**
@@ -101,26 +124,8 @@ public enum WriterHelper {
      */
     public String buildClassHTML(Entry entry) throws IOException,
                                                      InvalidAssetException {
-        currentEntry = entry;
         StringBuilder sb = new StringBuilder();
-        InputStream base = AssetLibrary.getAsset("base.html");
-
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(base))) {
-            String line;
-
-            while ((line = br.readLine()) != null) {
-                sb.append(line).append("\n");
-
-                Expression expression = checkForExpression(line);
-                if (expression != null) {
-                    int[] startEnd = expressionStartEnd(expression.name(), sb);
-                    sb.replace(startEnd[0], startEnd[1],
-                            handleExpression(expression));
-                }
-            }
-        }
-
+        writePageHTML(entry, sb);
         return sb.toString();
     }
 
@@ -132,32 +137,44 @@ public enum WriterHelper {
     public String buildIndexHTML() throws IOException,
                                           InvalidAssetException {
         StringBuilder sb = new StringBuilder();
+        writePageHTML(null, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Writes the page for the entry, or the index if the entry is null,
+     * to the Appendable. The layout file is copied a line at a time, with
+     * each expression written straight to the Appendable in its place.
+     */
+    public void writePageHTML(Entry entry, Appendable out) throws IOException,
+                                                                  InvalidAssetException {
         InputStream base = AssetLibrary.getAsset("base.html");
 
         try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(base))) {
+                new InputStreamReader(base, StandardCharsets.UTF_8))) {
             String line;
 
             while ((line = br.readLine()) != null) {
-                sb.append(line);
-                sb.append("\n");
-
                 Expression expression = checkForExpression(line);
-                if (expression != null) {
-                    int[] startEnd = expressionStartEnd(expression.name(), sb);
-                    sb.replace(startEnd[0], startEnd[1],
-                            handleExpression(expression));
+                int[] startEnd = expression != null
+                                 ? expressionStartEnd(expression.name(), line)
+                                 : null;
+                if (startEnd != null && startEnd[0] > -1) {
+                    out.append(line, 0, startEnd[0]);
+                    writeExpression(expression, entry, out);
+                    out.append(line, startEnd[1], line.length());
+                } else {
+                    out.append(line);
                 }
+                out.append('\n');
             }
         }
-
-        return sb.toString();
     }
 
     /**
      * Copies the src file to the dest file.
      */
-    public void copyFile(File src, File dst) throws IOException {
+    static public void copyFile(File src, File dst) throws IOException {
         if (src.isDirectory()) {
             copyDirectory(src, dst);
         } else {
@@ -169,7 +186,7 @@ public enum WriterHelper {
      * Copies the contents found in the given InputStream to a file with the
      * given name (into the output folder specified by the Config).
      */
-    public void copyInputStream(InputStream src, String name, File outputDir) throws IOException {
+    static public void copyInputStream(InputStream src, String name, File outputDir) throws IOException {
         File dst = new File(outputDir, name);
         if (name.charAt(name.length()-1) == '/') {
             dst.mkdirs();
@@ -189,7 +206,7 @@ public enum WriterHelper {
     /**
      * Copies the src directory to the dst directory recursively.
      */
-    private void copyDirectory(File src, File dst) throws IOException {
+    static private void copyDirectory(File src, File dst) throws IOException {
         dst.mkdirs();
         String filename;
         File[] files = src.listFiles();
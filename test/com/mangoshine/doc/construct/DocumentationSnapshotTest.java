@@ -0,0 +1,148 @@
+package com.mangoshine.doc.construct;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+/**
+ * A snapshot reads back into the same Documentation, and a
+ * damaged one is rejected with an IOException.
+ */
+public class DocumentationSnapshotTest {
+    @Test
+    public void roundTripGivesTheSameSnapshot() throws Exception {
+        byte[] bytes = write(SampleDocumentation.build());
+        Documentation doc = read(bytes);
+        assertArrayEquals(bytes, write(doc));
+    }
+
+    @Test
+    public void roundTripKeepsEntriesAndLinks() throws Exception {
+        Documentation original = SampleDocumentation.build();
+        Documentation doc = read(write(original));
+
+        assertEquals(describe(original.getEntries()), describe(doc.getEntries()));
+        Entry draw = doc.getEntry("Circle", "draw");
+        assertEquals("x", draw.getParameters().get(0).getName());
+        assertEquals("boolean", draw.getReturnValue().getType());
+        assertEquals("5", doc.getEntry("Circle").getProperties().iterator().next().getPlainDefault());
+        assertEquals(original.getLinks().getReferencedBy("Circle"), doc.getLinks().getReferencedBy("Circle"));
+    }
+
+    @Test
+    public void roundTripOfCompactText() throws Exception {
+        Documentation original = new Documentation();
+        original.setCompactText(true);
+        byte[] bytes = write(SampleDocumentation.build(original));
+
+        Documentation doc = new Documentation();
+        doc.setCompactText(true);
+        DocumentationSnapshot.read(doc, new DataInputStream(new ByteArrayInputStream(bytes)));
+        assertArrayEquals(bytes, write(doc));
+    }
+
+    @Test
+    public void truncatedSnapshotIsAnIOException() throws Exception {
+        byte[] bytes = write(SampleDocumentation.build());
+        for (int length = 0; length < bytes.length; length++) {
+            try {
+                read(Arrays.copyOf(bytes, length));
+                fail("read a snapshot cut to " + length + " of " + bytes.length + " bytes");
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void wrongParameterCountIsAnIOException() throws Exception {
+        byte[] bytes = write(SampleDocumentation.build());
+        int offset = parameterCountOffset(bytes);
+        ByteBuffer.wrap(bytes).putInt(offset, ByteBuffer.wrap(bytes).getInt(offset) + 1);
+        try {
+            read(bytes);
+            fail("read a snapshot with the wrong parameter count");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Corrupt snapshot"));
+        }
+    }
+
+    @Test
+    public void indexOutOfRangeIsAnIOException() throws Exception {
+        byte[] bytes = write(SampleDocumentation.build());
+        // the first entry's name is the string after the first record's type
+        int offset = parameterCountOffset(bytes) - recordCount(bytes) * 45 + 1;
+        ByteBuffer.wrap(bytes).putInt(offset, 1 << 20);
+        try {
+            read(bytes);
+            fail("read a snapshot with a string index out of range");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Corrupt snapshot"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void otherDataIsAnIOException() throws Exception {
+        read("not a snapshot at all".getBytes("UTF-8"));
+    }
+
+    // -------------------------------------------------------------------------
+
+    private static byte[] write(Documentation doc) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DocumentationSnapshot.write(doc, new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static Documentation read(byte[] bytes) throws IOException {
+        Documentation doc = new Documentation();
+        DocumentationSnapshot.read(doc, new DataInputStream(new ByteArrayInputStream(bytes)));
+        return doc;
+    }
+
+    /* The type, name and rendered description of each entry */
+    private static String describe(Iterable<Entry> entries) {
+        StringBuilder sb = new StringBuilder();
+        for (Entry entry : entries) {
+            sb.append(entry.getAnnotationType()).append(' ').append(entry.getName())
+              .append(' ').append(entry.getDescription()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /* Skips the header, the string table and the records */
+    private static int parameterCountOffset(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int offset = 8;
+        in.skipBytes(8);
+        int strings = in.readInt();
+        offset += 4;
+        for (int i = 0; i < strings; i++) {
+            int length = in.readInt();
+            in.skipBytes(length);
+            offset += 4 + length;
+        }
+        int records = in.readInt();
+        return offset + 4 + records * 45;
+    }
+
+    private static int recordCount(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        in.skipBytes(8);
+        int strings = in.readInt();
+        for (int i = 0; i < strings; i++) {
+            in.skipBytes(in.readInt());
+        }
+        return in.readInt();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.mangoshine.doc.construct;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Freezing the documentation freezes each entry once.
+ */
+public class DocumentationTest {
+    @Test
+    public void entriesAreFrozenOnce() {
+        Documentation doc = SampleDocumentation.build();
+        doc.freeze();
+        assertTrue(doc.isFrozen());
+
+        // a frozen entry keeps the arrays it was frozen into
+        Entry circle = doc.getEntry("Circle");
+        Set<Entry> methods = circle.getMethods();
+        circle.freeze();
+        assertSame(methods, circle.getMethods());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.mangoshine.doc.construct;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.mangoshine.doc.annotation.Annotation;
+
+/**
+ * A class and a namespace can't share a name, static and instance
+ * members have keys of their own, and views of several kinds are
+ * in name order.
+ */
+public class EntrySetTest {
+    @Test(expected = IllegalArgumentException.class)
+    public void classAndNamespaceWithTheSameNameAreRejected() {
+        EntrySet set = new EntrySet();
+        set.add(new ClassEntry("Square"));
+        set.add(new NamespaceEntry("Square"));
+    }
+
+    @Test
+    public void staticAndInstanceMembersHaveTheirOwnKeys() {
+        EntrySet set = new EntrySet();
+        ClassEntry circle = new ClassEntry("Circle");
+        set.add(circle);
+        MethodEntry instance = new MethodEntry(Annotation.INSTANCEMETHOD, "draw");
+        MethodEntry statik = new MethodEntry(Annotation.STATICMETHOD, "draw");
+        circle.addMethod(instance);
+        set.add("Circle", instance);
+        circle.addMethod(statik);
+        set.add("Circle", statik);
+
+        assertSame(instance, set.get("Circle#draw"));
+        assertSame(statik, set.get("Circle.draw"));
+        assertSame(instance, set.get("Circle", "draw"));
+        assertEquals(3, set.getEntries().size());
+    }
+
+    @Test
+    public void onlyAStaticMemberSharingItsNameIsAnchoredApart() {
+        ClassEntry circle = new ClassEntry("Circle");
+        Entry size = new PropertyEntry(Annotation.STATICPROPERTY, "size");
+        MethodEntry clear = new MethodEntry(Annotation.STATICMETHOD, "clear");
+        circle.addProperty(size);
+        circle.addMethod(clear);
+        assertEquals("size", size.getAnchor());
+
+        // the instance member comes second, and keeps its plain anchor
+        MethodEntry instance = new MethodEntry(Annotation.INSTANCEMETHOD, "size");
+        circle.addMethod(instance);
+        assertEquals(".size", size.getAnchor());
+        assertEquals("size", instance.getAnchor());
+        assertEquals("clear", clear.getAnchor());
+    }
+
+    @Test
+    public void severalKindsAreInNameOrder() {
+        EntrySet set = new EntrySet();
+        set.add(new ClassEntry("Square"));
+        set.add(new NamespaceEntry("Geometry"));
+        set.add(new ClassEntry("Circle"));
+        set.add(new NamespaceEntry("Utils"));
+
+        assertEquals(Arrays.asList("Circle", "Geometry", "Square", "Utils"),
+                     names(set.getEntries(Annotation.CLASS, Annotation.NAMESPACE)));
+        assertEquals(Arrays.asList("Circle", "Geometry", "Square", "Utils"), names(set.getEntries()));
+    }
+
+    private static List<String> names(Iterable<Entry> entries) {
+        List<String> names = new ArrayList<>();
+        for (Entry entry : entries) {
+            names.add(entry.getName());
+        }
+        return names;
+    }
+}
\ No newline at end of file
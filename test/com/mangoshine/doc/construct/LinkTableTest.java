@@ -0,0 +1,129 @@
+package com.mangoshine.doc.construct;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.mangoshine.doc.annotation.Annotation;
+import com.mangoshine.doc.parsing.DocumentationBuilder;
+
+/**
+ * Links in descriptions resolve to pages and anchors, or are rendered
+ * without an href, and the table knows what references each page.
+ */
+public class LinkTableTest {
+    private Documentation doc;
+    private LinkTable links;
+
+    @Before
+    public void setUp() {
+        doc = SampleDocumentation.build();
+        links = doc.getLinks();
+    }
+
+    @Test
+    public void linkToAPage() {
+        assertEquals("<p>A circle, drawn on a <tt><a href=\"Square.html\">Square</a></tt>.",
+                     doc.getEntry("Circle").getDescription());
+    }
+
+    @Test
+    public void linkToAMember() {
+        assertEquals("<p>Draws it, see <tt><a href=\"Circle.html#clear\">Circle#clear</a></tt>.",
+                     doc.getEntry("Circle", "draw").getDescription());
+    }
+
+    @Test
+    public void unresolvedNameHasNoHref() {
+        Parameter x = doc.getEntry("Circle", "draw").getParameters().get(0);
+        assertEquals("x axis of <tt>Nowhere</tt>", x.getDescription());
+        assertNull(links.get("Nowhere"));
+    }
+
+    @Test
+    public void reservedTagsAreNotLinks() {
+        assertEquals("<p>a <tt>b</tt></p>", links.render("<p>a <tt>b</tt></p>", null));
+        assertEquals("a &lt; b and c &gt; d", links.render("a < b and c > d", null));
+    }
+
+    @Test
+    public void textAroundLinksIsEscaped() {
+        assertEquals("<p>square &amp; friends, \"quoted\", 1 &lt; 2 and <tt><a href=\"Square.html\">Square</a></tt>",
+                     links.render("<p>square & friends, \"quoted\", 1 < 2 and <Square>", null));
+        assertEquals("&lt;&lt;<tt>Nowhere</tt>", links.render("<<<Nowhere>", null));
+        assertEquals("a &amp; b", links.render("a & b", null));
+    }
+
+    @Test
+    public void membersAreKnownByBothForms() {
+        assertSame(links.get("Circle#draw"), links.get("Circle.draw"));
+        assertSame(links.get("Square.maxSize"), links.get("Square#maxSize"));
+        assertEquals("Square.maxSize", links.get("Square#maxSize").getName());
+        assertEquals("Square", links.get("Square.maxSize").getPage());
+    }
+
+    @Test
+    public void instanceAndStaticMembersWithTheSameNameAreApart() {
+        Documentation other = new Documentation();
+        DocumentationBuilder builder = new DocumentationBuilder(other);
+        builder.onStart();
+        builder.onClass("Circle");
+        builder.onMethod(Annotation.INSTANCEMETHOD, "Circle", "draw");
+        builder.onMethod(Annotation.STATICMETHOD, "Circle", "draw");
+        builder.onEnd();
+
+        LinkTable links = other.getLinks();
+        assertEquals("Circle.html#draw", links.get("Circle#draw").getHref());
+        // only the static member that shares its name is anchored apart
+        assertEquals("Circle.html#.draw", links.get("Circle.draw").getHref());
+        assertEquals(2, other.getEntry("Circle").getMethods().size());
+        assertEquals(Annotation.INSTANCEMETHOD, other.getEntry("Circle#draw").getAnnotationType());
+        assertEquals(Annotation.STATICMETHOD, other.getEntry("Circle.draw").getAnnotationType());
+    }
+
+    @Test
+    public void referencedByOtherPages() {
+        assertEquals(Arrays.asList("Circle", "Square.defaults"), names(links.getReferencedBy("Square")));
+        // Circle#draw links to Circle#clear on its own page, which doesn't count
+        assertEquals(Arrays.asList("Square.maxSize"), names(links.getReferencedBy("Circle")));
+        assertTrue(links.getReferencedBy("Square.defaults").isEmpty());
+    }
+
+    @Test
+    public void sameDocumentationChangesNoPages() {
+        assertEquals(Collections.emptySet(), links.changedPages(SampleDocumentation.build().getLinks()));
+    }
+
+    @Test
+    public void pagesLinkingToARemovedPageChange() {
+        Documentation other = new Documentation();
+        DocumentationBuilder builder = new DocumentationBuilder(other);
+        builder.onStart();
+        builder.onClass("Circle");
+        builder.onDescriptionChunk(Annotation.CLASS, "Circle", "A circle, drawn on a <Square>.");
+        builder.onEnd();
+
+        List<String> changed = new ArrayList<>(links.changedPages(other.getLinks()));
+        Collections.sort(changed);
+        // Circle and Square.defaults link to Square, which is gone,
+        // and Circle is no longer referenced from Square.maxSize
+        assertEquals(Arrays.asList("Circle", "Square", "Square.defaults"), changed);
+    }
+
+    private static List<String> names(Iterable<LinkTable.Target> targets) {
+        List<String> names = new ArrayList<>();
+        for (LinkTable.Target target : targets) {
+            names.add(target.getName());
+        }
+        return names;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.mangoshine.doc.construct;
+
+import com.mangoshine.doc.annotation.Annotation;
+import com.mangoshine.doc.parsing.DocumentationBuilder;
+
+/**
+ * A small Documentation built through the same events the parser sends,
+ * with links between its pages, to one missing name and within a page.
+ */
+class SampleDocumentation {
+    static Documentation build() {
+        return build(new Documentation());
+    }
+
+    static Documentation build(Documentation doc) {
+        DocumentationBuilder builder = new DocumentationBuilder(doc);
+        builder.onStart();
+
+        builder.onClass("Circle");
+        builder.onDescriptionChunk(Annotation.CLASS, "Circle", "A circle, drawn on a <Square>.");
+        builder.onDescriptionChunk(Annotation.CONSTRUCTOR, "Circle", "Builds a circle.");
+        builder.onParam(Annotation.CONSTRUCTOR, "Circle", "radius", "int", "the radius");
+        builder.onMethod(Annotation.INSTANCEMETHOD, "Circle", "draw");
+        builder.onDescriptionChunk(Annotation.INSTANCEMETHOD, "Circle#draw", "Draws it, see <Circle#clear>.");
+        builder.onParam(Annotation.INSTANCEMETHOD, "Circle#draw", "x", "int", "x axis of <Nowhere>");
+        builder.onReturn(Annotation.INSTANCEMETHOD, "Circle#draw", "boolean", "true if drawn");
+        builder.onMethod(Annotation.STATICMETHOD, "Circle", "clear");
+        builder.onDescriptionChunk(Annotation.STATICMETHOD, "Circle.clear", "Clears every circle.");
+        builder.onProperty(Annotation.INSTANCEPROPERTY, "Circle", "radius", "int", "5", "the radius");
+
+        builder.onClass("Square");
+        builder.onDescriptionChunk(Annotation.CLASS, "Square", "A square.");
+        builder.onProperty(Annotation.STATICPROPERTY, "Square", "maxSize", "", null, "");
+        builder.onType(Annotation.STATICPROPERTY, "Square.maxSize", "int");
+        builder.onDescriptionChunk(Annotation.STATICPROPERTY, "Square.maxSize", "Largest, like <Circle#draw>.");
+
+        builder.onNamespace("Square.defaults");
+        builder.onDescriptionChunk(Annotation.NAMESPACE, "Square.defaults", "Defaults of a <Square>.");
+
+        builder.onEnd();
+        return doc;
+    }
+}
\ No newline at end of file
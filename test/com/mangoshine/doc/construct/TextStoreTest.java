@@ -0,0 +1,137 @@
+package com.mangoshine.doc.construct;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Refs pack where the text is and its length, text appended to the
+ * last text stored grows in place, and anything else is copied first.
+ */
+public class TextStoreTest {
+    private final TextStore store = new TextStore();
+
+    @Test
+    public void emptyTextIsNeverStored() {
+        assertEquals(TextStore.EMPTY, store.add(""));
+        assertEquals("", store.get(TextStore.EMPTY));
+        assertEquals(0, TextStore.length(TextStore.EMPTY));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void refHoldsLengthInBytes() {
+        long first = store.add("circle");
+        long second = store.add("caf\u00e9 \u20ac \ud83d\ude00");
+        assertEquals(6, TextStore.length(first));
+        // 5 + 1 + 3 + 1 + 4 bytes of UTF-8
+        assertEquals(14, TextStore.length(second));
+        assertEquals(20, store.size());
+        assertEquals("circle", store.get(first));
+        assertEquals("caf\u00e9 \u20ac \ud83d\ude00", store.get(second));
+    }
+
+    @Test
+    public void appendingToTheLastTextGrowsItInPlace() {
+        long ref = store.add("<p>Draws");
+        long grown = store.append(ref, " the circle.");
+        assertEquals(ref >>> 24, grown >>> 24);
+        assertEquals("<p>Draws the circle.", store.get(grown));
+        assertEquals(20, store.size());
+    }
+
+    @Test
+    public void appendingToEarlierTextCopiesItToTheEnd() {
+        long first = store.add("first");
+        long second = store.add("second");
+        long grown = store.append(first, " again");
+        assertNotEquals(first >>> 24, grown >>> 24);
+        assertEquals("first again", store.get(grown));
+        // what was there before is left as it was
+        assertEquals("first", store.get(first));
+        assertEquals("second", store.get(second));
+        assertEquals(5 + 6 + 11, store.size());
+    }
+
+    @Test
+    public void appendingNothingKeepsTheRef() {
+        long ref = store.add("circle");
+        assertEquals(ref, store.append(ref, ""));
+    }
+
+    @Test
+    public void unpairedSurrogateIsWrittenAsString_getBytesWould() {
+        String text = "a\ud83db";
+        long ref = store.add(text);
+        assertEquals(new String(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8),
+                     store.get(ref));
+    }
+
+    @Test
+    public void textRunsOverChunks() {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 3 << 20) {
+            sb.append("line ").append(sb.length()).append(" \u00e9\u20ac\n");
+        }
+        // starts part way into the first chunk and ends in the fourth
+        long before = store.add("before");
+        long ref = store.append(store.add("x"), sb.toString());
+        assertEquals("before", store.get(before));
+        assertEquals("x" + sb, store.get(ref));
+    }
+
+    @Test
+    public void compactDescriptionIsRenderedAsAString() {
+        Documentation doc = new Documentation();
+        doc.setCompactText(true);
+        SampleDocumentation.build(doc);
+
+        Documentation strings = SampleDocumentation.build();
+        for (String name : new String[] { "Circle", "Square", "Square.defaults" }) {
+            assertEquals(strings.getEntry(name).getDescription(), doc.getEntry(name).getDescription());
+        }
+        // asking again doesn't store anything more
+        long size = doc.getTextStore().size();
+        doc.getEntry("Circle").getDescription();
+        assertEquals(size, doc.getTextStore().size());
+    }
+
+    @Test
+    public void everyCompactDescriptionIsRenderedWhenLinksAreResolved() {
+        Documentation doc = new Documentation();
+        doc.setCompactText(true);
+        SampleDocumentation.build(doc);
+
+        long size = doc.getTextStore().size();
+        for (Entry entry : doc.getEntries()) {
+            describe(entry);
+            if (entry.getConstructor() != null) {
+                describe(entry.getConstructor());
+            }
+        }
+        assertEquals(size, doc.getTextStore().size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void compactDescriptionChangedAfterResolvingIsNotRendered() {
+        Documentation doc = new Documentation();
+        doc.setCompactText(true);
+        SampleDocumentation.build(doc);
+
+        Entry circle = doc.getEntry("Circle");
+        circle.appendToDescription("Round.");
+        circle.getDescription();
+    }
+
+    private static void describe(Entry entry) {
+        entry.getDescription();
+        if (entry.getParameters() != null) {
+            for (Parameter parameter : entry.getParameters()) {
+                parameter.getDescription();
+            }
+        }
+    }
+}
\ No newline at end of file
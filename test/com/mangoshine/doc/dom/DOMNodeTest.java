@@ -0,0 +1,58 @@
+package com.mangoshine.doc.dom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * Text and attribute values are escaped as they are written,
+ * and raw text is written as it is.
+ */
+public class DOMNodeTest {
+    @Test
+    public void textIsEscaped() {
+        assertEquals("<td>square &amp; friends, \"quoted\", 1 &lt; 2 &gt; 0</td>",
+                     new DOMNode("td", "square & friends, \"quoted\", 1 < 2 > 0").toString());
+    }
+
+    @Test
+    public void attributeValuesEscapeQuotesToo() {
+        assertEquals("<a href=\"a&amp;b &quot;c&quot; &lt;d&gt;\"></a>",
+                     new DOMNode("a").addAttribute("href", "a&b \"c\" <d>").toString());
+    }
+
+    @Test
+    public void rawTextIsWrittenAsItIs() {
+        assertEquals("<div><p>a & <b>b</b></div>", new DOMNode("div", "<p>a & <b>b</b>").markRaw().toString());
+    }
+
+    @Test
+    public void childrenAreEscapedOnTheirOwn() {
+        DOMNode span = new DOMNode("span", "Generated by ")
+                            .appendNode(new DOMNode("a", "A & B").addAttribute("href", "x?a=1&b=2"));
+        assertEquals("<span>Generated by <a href=\"x?a=1&amp;b=2\">A &amp; B</a></span>", span.toString());
+    }
+
+    @Test
+    public void textWithNothingToEscapeIsReturnedAsItIs() {
+        String text = "nothing to escape here";
+        assertSame(text, DOMNode.escape(text));
+        assertEquals("", DOMNode.escape(""));
+    }
+
+    @Test
+    public void escapeReplacesEveryEntity() {
+        assertEquals("&lt;&amp;&gt;", DOMNode.escape("<&>"));
+        assertEquals("a &amp;&amp; b", DOMNode.escape("a && b"));
+        assertEquals("&lt;start and end&gt;", DOMNode.escape("<start and end>"));
+        assertEquals("\"quoted\"", DOMNode.escape("\"quoted\""));
+    }
+
+    @Test
+    public void escapeAppendsARange() {
+        StringBuilder sb = new StringBuilder("x");
+        DOMNode.escape("ab<c&d>ef", 1, 7, sb);
+        assertEquals("xb&lt;c&amp;d&gt;", sb.toString());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,192 @@
+package com.mangoshine.doc.parsing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.mangoshine.doc.annotation.AnnotationException;
+
+/**
+ * ByteScanner must produce the same ScannedFile as
+ * scanning the file line by line.
+ */
+public class ByteScannerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void sampleMatchesLineScanner() throws Exception {
+        byte[] bytes = sample();
+        assertSameScan(bytes, StandardCharsets.UTF_8);
+        assertFalse(lines(scanBytes(bytes, StandardCharsets.UTF_8)).isEmpty());
+    }
+
+    @Test
+    public void crlfLineEndingsMatchLineScanner() throws Exception {
+        String text = new String(sample(), StandardCharsets.UTF_8);
+        assertSameScan(text.replace("\n", "\r\n").getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void onlyUtf8AndSingleByteCharsetsAreSupported() {
+        assertTrue(ByteScanner.supports(StandardCharsets.UTF_8));
+        assertTrue(ByteScanner.supports(StandardCharsets.ISO_8859_1));
+        assertTrue(ByteScanner.supports(Charset.forName("windows-1252")));
+        assertFalse(ByteScanner.supports(StandardCharsets.UTF_16));
+        // their second bytes can be '@', '{' or '}'
+        assertFalse(ByteScanner.supports(Charset.forName("Shift_JIS")));
+        assertFalse(ByteScanner.supports(Charset.forName("GBK")));
+        assertFalse(ByteScanner.supports(Charset.forName("Big5")));
+    }
+
+    @Test
+    public void singleByteCharsetMatchesLineScanner() throws Exception {
+        String text = new String(sample(), StandardCharsets.UTF_8);
+        assertSameScan(text.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    public void bufferWithoutArrayMatchesLineScanner() throws Exception {
+        byte[] bytes = sample();
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        assertEquals(lines(scanLines(bytes, StandardCharsets.UTF_8)),
+                     lines(new ByteScanner(direct, "sample.js", StandardCharsets.UTF_8).scan()));
+    }
+
+    @Test
+    public void mappedFileMatchesLineScanner() throws Exception {
+        // large enough to be memory mapped rather than read
+        byte[] bytes = repeat(sample(), 128 * 1024);
+        File file = folder.newFile("big.js");
+        Files.write(file.toPath(), bytes);
+        assertEquals(lines(scanLines(bytes, StandardCharsets.UTF_8)),
+                     lines(ByteScanner.scan(file.toPath(), StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void chunksAreJoinedBackTogether() throws Exception {
+        // several chunks, with comment blocks running over their boundaries
+        byte[] bytes = repeat(sample(), ByteScanner.CHUNK_SIZE * 2 + ByteScanner.CHUNK_SIZE / 2);
+        assertEquals(lines(scanLines(bytes, StandardCharsets.UTF_8)), lines(scanChunks(bytes)));
+    }
+
+    @Test
+    public void chunkBoundaryInsideALongLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] head = repeat(sample(), ByteScanner.CHUNK_SIZE - 100);
+        out.write(head, 0, head.length);
+        // a line that runs far past where the first chunk would end
+        out.write('x');
+        for (int i = 0; i < ByteScanner.CHUNK_SIZE; i++) {
+            out.write(' ');
+        }
+        out.write(';');
+        out.write('\n');
+        byte[] tail = repeat(sample(), ByteScanner.CHUNK_SIZE);
+        out.write(tail, 0, tail.length);
+
+        byte[] bytes = out.toByteArray();
+        assertEquals(lines(scanLines(bytes, StandardCharsets.UTF_8)), lines(scanChunks(bytes)));
+    }
+
+    @Test
+    public void errorInALaterChunkHasTheLineOfTheWholeFile() throws Exception {
+        byte[] head = repeat(sample(), ByteScanner.CHUNK_SIZE * 3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(head, 0, head.length);
+        byte[] bad = "// @nosuchannotation here\n".getBytes(StandardCharsets.UTF_8);
+        out.write(bad, 0, bad.length);
+        byte[] bytes = out.toByteArray();
+
+        String expected = null;
+        try {
+            scanLines(bytes, StandardCharsets.UTF_8);
+            fail("expected an AnnotationException");
+        } catch (AnnotationException e) {
+            expected = e.getMessage();
+        }
+        try {
+            scanChunks(bytes);
+            fail("expected an AnnotationException");
+        } catch (AnnotationException e) {
+            assertEquals(expected, e.getMessage());
+        }
+    }
+
+    // -------------------------------------------------------------------------
+
+    private ScannedFile scanChunks(byte[] bytes) throws Exception {
+        return ByteScanner.scan(ByteBuffer.wrap(bytes), "sample.js", StandardCharsets.UTF_8, pool);
+    }
+
+    static byte[] sample() throws IOException {
+        try (InputStream in = ByteScannerTest.class.getResourceAsStream("sample.js")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /* The content repeated until it is at least size bytes long */
+    static byte[] repeat(byte[] content, int size) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size + content.length);
+        while (out.size() < size) {
+            out.write(content, 0, content.length);
+            out.write('\n');
+        }
+        return out.toByteArray();
+    }
+
+    static ScannedFile scanLines(byte[] bytes, Charset charset) throws IOException, AnnotationException {
+        return Parser.scanLines(new ByteArrayInputStream(bytes), "sample.js", charset);
+    }
+
+    static ScannedFile scanBytes(byte[] bytes, Charset charset) throws AnnotationException {
+        return new ByteScanner(ByteBuffer.wrap(bytes), "sample.js", charset).scan();
+    }
+
+    static void assertSameScan(byte[] bytes, Charset charset) throws IOException, AnnotationException {
+        assertEquals(lines(scanLines(bytes, charset)), lines(scanBytes(bytes, charset)));
+    }
+
+    /* Everything about each scanned line, in order */
+    static List<String> lines(ScannedFile file) {
+        List<String> lines = new ArrayList<>();
+        for (ScannedLine line : file.getLines()) {
+            lines.add(line + " [" + line.annotation + "]");
+        }
+        return lines;
+    }
+}
\ No newline at end of file
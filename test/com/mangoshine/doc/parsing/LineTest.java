@@ -0,0 +1,30 @@
+package com.mangoshine.doc.parsing;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Links are rendered before they are resolved,
+ * and the rest of the line is escaped.
+ */
+public class LineTest {
+    @Test
+    public void linksAreRendered() {
+        assertEquals("<p>see <tt><a href=\"Circle.html\">Circle</a></tt> and <tt><a href=\"Square.html\">Square</a></tt>",
+                     Line.handleLinks("<p>see <Circle> and <Square>"));
+    }
+
+    @Test
+    public void textIsEscaped() {
+        assertEquals("square &amp; friends, \"quoted\", 1 &lt; 2",
+                     Line.handleLinks("square & friends, \"quoted\", 1 < 2"));
+        assertEquals("&lt;&lt;<tt><a href=\"Circle.html\">Circle</a></tt> &amp;",
+                     Line.handleLinks("<<<Circle> &"));
+    }
+
+    @Test
+    public void reservedTagsAreKept() {
+        assertEquals("<p>a <tt>b</tt></p>", Line.handleLinks("<p>a <tt>b</tt></p>"));
+    }
+}
\ No newline at end of file
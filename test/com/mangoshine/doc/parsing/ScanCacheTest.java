@@ -0,0 +1,111 @@
+package com.mangoshine.doc.parsing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * A cached scan is used while the file's time and size match, or while
+ * its content hash does, and is thrown away once the file has changed.
+ */
+public class ScanCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File source;
+    private File cacheDir;
+    private ScanCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        source = folder.newFile("a.js");
+        cacheDir = folder.newFolder("cache");
+        cache = new ScanCache(cacheDir, StandardCharsets.UTF_8);
+        write("// @class A\n// The first version.\nfunction A() {}\n");
+        source.setLastModified(1000000000000L);
+        store();
+    }
+
+    @Test
+    public void unchangedFileIsAHit() throws Exception {
+        ScannedFile cached = cache.load(source);
+        assertNotNull(cached);
+        assertEquals(ByteScannerTest.lines(scan()), ByteScannerTest.lines(cached));
+    }
+
+    @Test
+    public void touchedFileWithSameContentIsAHit() throws Exception {
+        source.setLastModified(1000000005000L);
+        assertNotNull(cache.load(source));
+        // the new time was stored, so the next load is a hit without the hash
+        assertNotNull(new ScanCache(cacheDir, StandardCharsets.UTF_8).load(source));
+    }
+
+    @Test
+    public void differentSizeIsAMiss() throws Exception {
+        write("// @class A\n// The second, longer version.\nfunction A() {}\n");
+        source.setLastModified(1000000000000L);
+        assertNull(cache.load(source));
+    }
+
+    @Test
+    public void sameSizeWithDifferentContentIsAMiss() throws Exception {
+        write("// @class B\n// The first version.\nfunction B() {}\n");
+        source.setLastModified(1000000005000L);
+        assertNull(cache.load(source));
+    }
+
+    @Test
+    public void fileChangedWhileScanningIsAMiss() throws Exception {
+        ScanCache.Stamp stamp = new ScanCache.Stamp(source);
+        ScannedFile scanned = Parser.scanLines(stamp.digest(Files.newInputStream(source.toPath())),
+                                                 "a.js", StandardCharsets.UTF_8);
+        write("// @class B\n// The first version.\nfunction B() {}\n");
+        source.setLastModified(1000000005000L);
+        cache.store(source, stamp, scanned);
+        // the stored time and hash are of the first version, which was scanned
+        assertNull(cache.load(source));
+    }
+
+    @Test
+    public void otherEncodingIsAMiss() throws Exception {
+        assertNull(new ScanCache(cacheDir, StandardCharsets.ISO_8859_1).load(source));
+    }
+
+    @Test
+    public void uncachedFileIsAMiss() throws Exception {
+        assertNull(cache.load(folder.newFile("b.js")));
+    }
+
+    @Test
+    public void damagedCacheFileIsAMiss() throws Exception {
+        for (File file : cacheDir.listFiles()) {
+            Files.write(file.toPath(), new byte[] { 0, 0, 0, 3, 0 });
+        }
+        assertNull(cache.load(source));
+    }
+
+    private void write(String text) throws Exception {
+        Files.write(source.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void store() throws Exception {
+        ScanCache.Stamp stamp = new ScanCache.Stamp(source);
+        stamp.update(ByteBuffer.wrap(Files.readAllBytes(source.toPath())));
+        cache.store(source, stamp, scan());
+    }
+
+    private ScannedFile scan() throws Exception {
+        return ByteScannerTest.scanLines(Files.readAllBytes(source.toPath()), StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
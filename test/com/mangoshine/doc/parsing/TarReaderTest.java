@@ -0,0 +1,57 @@
+package com.mangoshine.doc.parsing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Reads archives made by GNU tar in its gnu, pax and ustar formats,
+ * each holding a file whose path is longer than the 100 chars of the
+ * name field, and in the gnu one a directory as well.
+ */
+public class TarReaderTest {
+    private static final String DEEP =
+        "directory_with_a_rather_long_name_0/directory_with_a_rather_long_name_1/"
+        + "directory_with_a_rather_long_name_2/directory_with_a_rather_long_name_3/deep.js";
+
+    @Test
+    public void readsGnuLongNames() throws Exception {
+        assertEntries("gnu-long-names.tar");
+    }
+
+    @Test
+    public void readsPaxPaths() throws Exception {
+        assertEntries("pax-paths.tar");
+    }
+
+    @Test
+    public void readsUstarPrefixes() throws Exception {
+        assertEntries("ustar-prefix.tar");
+    }
+
+    @Test
+    public void skipsContentThatIsNotRead() throws Exception {
+        try (InputStream in = TarReaderTest.class.getResourceAsStream("gnu-long-names.tar")) {
+            TarReader tar = new TarReader(in);
+            assertEquals("short.js", tar.next());
+            assertEquals(DEEP, tar.next());
+            assertNull(tar.next());
+        }
+    }
+
+    /* The archive holds short.js and the deep file, in that order */
+    private static void assertEntries(String archive) throws Exception {
+        try (InputStream in = TarReaderTest.class.getResourceAsStream(archive)) {
+            TarReader tar = new TarReader(in);
+            assertEquals("short.js", tar.next());
+            assertEquals("// @class Short\n", new String(tar.read(), StandardCharsets.UTF_8));
+            assertEquals(DEEP, tar.next());
+            assertEquals("// @class Deep\nfunction Deep() {}\n", new String(tar.read(), StandardCharsets.UTF_8));
+            assertNull(tar.next());
+        }
+    }
+}
\ No newline at end of file
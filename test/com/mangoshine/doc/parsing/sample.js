@@ -0,0 +1,71 @@
+// ------------------------------------------------------
+// @class Square
+//
+// Represents a square on an HTML5 canvas element. See <Circle>.
+//
+// @param {DOM} element  : the canvas element
+// @param {int} diameter : the diameter of the square
+// ------------------------------------------------------
+function Square(element, diameter) {
+    this.diameter = diameter;               // {int}     diameter : the diameter of the square {@default 5}
+    this.canvas = element;                  // {DOMNode} canvas   : the canvas element
+    // @event Square.onhover
+    //
+    this.canvas.onhover = Square.Events.onhover;
+}
+
+// @instancemethod Square#draw
+// Draws the square onto the canvas.
+// Second line & more.
+// @param {int} x : x axis
+// @return {boolean} : true if drawn
+Square.prototype.draw = function() {
+}
+
+// @staticmethod Square#create
+// Creates one.
+Square.create = function() {}
+
+// @staticproperty Square.maxSize
+// {int} The maximum size.
+Square.maxSize = 5;
+
+// @namespace Square.defaults
+// Default options.
+// {int} width : the width {@default 50}
+Square.defaults = {
+};
+
+// @class Circle
+// A circle. Unlike a <Square>
+// @constructor Builds a circle
+// @param {int} radius : the radius
+function Circle(radius) {
+    this.radius = radius; // {int} radius : the radius
+}
+
+// @instancemethod Circle#draw
+// Draws the circle.
+Circle.prototype.draw = function() {};
+
+// @staticmethod Circle#clear
+// Clears.
+Circle.clear = function() {};
+
+// @staticproperty Circle.count
+// {int} Number of circles.
+Circle.count = 0;
+
+// ----------------------------------------------------
+// @namespace Shapes.util
+//	Tabbed ünïcödé description — with a dash.
+////////////////////////////////////////////////////////
+var util = {};
+    // @sm Shapes.util#noop
+    // Indented comment lines.
+  /* a block comment is code */ util.noop = function() {};
+var x = "// not a comment"; // {string} trailing : not a property without this
+    this.size = 3;          // {int} size : a trailing instance property
+// @staticproperty Shapes.util.last
+// {int} The last line has no newline.
+// end
\ No newline at end of file